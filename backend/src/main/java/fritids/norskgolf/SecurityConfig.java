@@ -66,13 +66,13 @@ public class SecurityConfig {
                 .authorizeHttpRequests(registry -> {
                     registry.requestMatchers(
                             "/", "/index.html", "/static/**", "/*.ico", "/*.json", "/*.png",
-                            "/js/**", "/css/**", "/login/**", "/oauth2/**", "/error", "/api/auth/me", "/api/csrf"
+                            "/js/**", "/css/**", "/login/**", "/oauth2/**", "/error", "/api/auth/me", "/api/csrf", "/api/health"
                     ).permitAll();
                     // SPA shell: SpaRedirectController forwards every extensionless single-segment
                     // path to index.html, so permit that same class of GETs instead of listing each
                     // React route. /api/** contains a slash, so it never matches here.
                     registry.requestMatchers(RegexRequestMatcher.regexMatcher(HttpMethod.GET, "/[^/.]*(\\?.*)?")).permitAll();
-                    registry.requestMatchers(HttpMethod.GET, "/api/courses").permitAll();
+                    registry.requestMatchers(HttpMethod.GET, "/api/courses", "/api/courses/catalog", "/api/courses/changes", "/api/courses/nearby").permitAll();
                     registry.anyRequest().authenticated();
                 })
                 .headers(headers -> headers
@@ -0,0 +1,89 @@
+package fritids.norskgolf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.security.jackson2.SecurityJackson2Modules;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns session attributes into the bytes stored in SPRING_SESSION_ATTRIBUTES. JSON by default,
+ * using Spring Security's Jackson modules so the security context, the CSRF token and the OAuth2
+ * login state all have a mapping; JDK serialisation was several times the size for the same
+ * objects, mostly class descriptors repeated in every row.
+ *
+ * <p>Anything JSON can't carry faithfully falls back to JDK serialisation. "Faithfully" is checked
+ * by reading the JSON back: it must be the same class and write the same JSON again. Not equals(),
+ * which most security types don't implement. An attribute that came back as a Map, or as an
+ * Integer where a Long went in, would break whoever reads it later, and a class Spring Security
+ * hasn't allowlisted doesn't read back at all. The check costs a parse per write, but writes only
+ * happen when an attribute is set, and reads are the hot path.
+ *
+ * <p>Reads tell the two apart by the JDK stream magic (0xACED), which can never start a UTF-8 JSON
+ * document, so sessions written before the switch still load.
+ */
+public class SessionAttributeCodec {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionAttributeCodec.class);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final SerializingConverter jdkWriter = new SerializingConverter();
+    private final DeserializingConverter jdkReader;
+
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong jdkFallbacks = new AtomicLong();
+
+    public SessionAttributeCodec(ClassLoader classLoader) {
+        mapper.registerModules(SecurityJackson2Modules.getModules(classLoader));
+        mapper.registerModule(new JavaTimeModule());
+        jdkReader = new DeserializingConverter(classLoader);
+    }
+
+    public byte[] serialize(Object value) {
+        byte[] bytes = toJson(value);
+        if (bytes == null) {
+            jdkFallbacks.incrementAndGet();
+            bytes = jdkWriter.convert(value);
+        }
+        writes.incrementAndGet();
+        bytesWritten.addAndGet(bytes.length);
+        return bytes;
+    }
+
+    public Object deserialize(byte[] bytes) {
+        if (isJdk(bytes)) return jdkReader.convert(bytes);
+        try {
+            return mapper.readValue(bytes, Object.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("could not read session attribute", e);
+        }
+    }
+
+    /** The JSON form, or null when it wouldn't read back as the same thing. */
+    private byte[] toJson(Object value) {
+        try {
+            byte[] json = mapper.writeValueAsBytes(value);
+            Object read = mapper.readValue(json, Object.class);
+            if (read.getClass() == value.getClass() && Arrays.equals(json, mapper.writeValueAsBytes(read))) return json;
+            log.debug("Session attribute {} does not round-trip through JSON", value.getClass().getName());
+        } catch (Exception e) {
+            log.debug("Session attribute {} has no JSON mapping: {}", value.getClass().getName(), e.getMessage());
+        }
+        return null;
+    }
+
+    static boolean isJdk(byte[] bytes) {
+        return bytes.length >= 2 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
+    }
+
+    // Per instance, since startup.
+    public long writes() { return writes.get(); }
+    public long bytesWritten() { return bytesWritten.get(); }
+    public long jdkFallbacks() { return jdkFallbacks.get(); }
+}
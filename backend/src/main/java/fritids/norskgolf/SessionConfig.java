@@ -0,0 +1,36 @@
+package fritids.norskgolf;
+
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+
+@Configuration
+public class SessionConfig implements BeanClassLoaderAware {
+
+    private ClassLoader classLoader;
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Bean
+    public SessionAttributeCodec sessionAttributeCodec() {
+        return new SessionAttributeCodec(classLoader);
+    }
+
+    /**
+     * Picked up by name by the JDBC session repository, which otherwise JDK-serialises every
+     * attribute. Only attributes that were set are rewritten (spring.session.jdbc.save-mode), so
+     * this runs on login and on the first CSRF token, not on every request.
+     */
+    @Bean
+    public ConversionService springSessionConversionService(SessionAttributeCodec codec) {
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, codec::serialize);
+        conversionService.addConverter(byte[].class, Object.class, codec::deserialize);
+        return conversionService;
+    }
+}
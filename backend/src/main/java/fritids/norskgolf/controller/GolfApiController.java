@@ -3,12 +3,20 @@ package fritids.norskgolf.controller;
 import fritids.norskgolf.dto.*;
 import fritids.norskgolf.entities.User;
 import fritids.norskgolf.service.GolfService;
+import fritids.norskgolf.service.RoundExportService;
+import fritids.norskgolf.service.RoundImportService;
 import fritids.norskgolf.service.UserService;
+import fritids.norskgolf.service.catalog.CourseCatalogBody;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.security.Principal;
 import java.util.List;
 
@@ -18,13 +26,107 @@ public class GolfApiController {
 
     @Autowired private GolfService golfService;
     @Autowired private UserService userService; // Used for resolving Principal
+    @Autowired private CourseCatalogBody courseCatalogBody;
+    @Autowired private RoundExportService roundExportService;
+    @Autowired private RoundImportService roundImportService;
 
     @GetMapping("/courses")
-    public ResponseEntity<List<CourseDto>> getAllCourses(Principal principal) {
-        User user = (principal != null) ? userService.resolveUser(principal) : null;
+    public ResponseEntity<?> getAllCourses(
+            Principal principal,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        // Anonymous callers all get the same body, so it comes pre-serialised. Private, though:
+        // this URL answers logged-in callers with their own played flags.
+        if (principal == null) return catalogBody(acceptEncoding, CacheControl.noCache().cachePrivate());
+        User user = userService.resolveUser(principal);
         return ResponseEntity.ok(golfService.getAllCourses(user));
     }
 
+    /** The shared catalog, identical for everyone; pair it with /courses/played for the flags. */
+    @GetMapping("/courses/catalog")
+    public ResponseEntity<byte[]> getCourseCatalog(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        return catalogBody(acceptEncoding, CacheControl.noCache().cachePublic());
+    }
+
+    /** What changed since the client's version; a full snapshot if it has none or is too far behind. */
+    @GetMapping("/courses/changes")
+    public ResponseEntity<CourseChangesDto> getCourseChanges(
+            @RequestParam(required = false) Long since,
+            Principal principal
+    ) {
+        User user = (principal != null) ? userService.resolveUser(principal) : null;
+        return ResponseEntity.ok(golfService.getCourseChanges(user, since));
+    }
+
+    @GetMapping("/courses/played")
+    public ResponseEntity<List<Long>> getPlayedCourseIds(Principal principal) {
+        User user = userService.resolveUser(principal);
+        if (user == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.ok(golfService.getPlayedCourseIds(user));
+    }
+
+    // No conditional-GET handling here on purpose: for a 200 ResponseEntity carrying an ETag,
+    // Spring compares it with If-None-Match itself and answers 304 without writing the body.
+    // no-cache means "revalidate every time", which with a matching ETag costs only that 304.
+    private ResponseEntity<byte[]> catalogBody(String acceptEncoding, CacheControl cacheControl) {
+        CourseCatalogBody.Body body = courseCatalogBody.current();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .eTag(gzip ? body.gzipEtag() : body.etag());
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(gzip ? body.gzip() : body.json());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) continue;
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (!refused) return true;
+        }
+        return false;
+    }
+
+    // Same path as the full list: a map that sends its viewport gets only what is on screen.
+    @GetMapping(value = "/courses", params = "bbox")
+    public ResponseEntity<CourseViewportDto> getCoursesInView(
+            @RequestParam String bbox,
+            @RequestParam(required = false) Integer zoom,
+            Principal principal
+    ) {
+        User user = (principal != null) ? userService.resolveUser(principal) : null;
+        return ResponseEntity.ok(golfService.getCoursesInView(user, bbox, zoom));
+    }
+
+    @GetMapping("/courses/nearby")
+    public ResponseEntity<List<NearbyCourseDto>> getNearbyCourses(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(required = false) Integer k,
+            @RequestParam(defaultValue = "false") boolean unplayedOnly,
+            Principal principal
+    ) {
+        User user = (principal != null) ? userService.resolveUser(principal) : null;
+        return ResponseEntity.ok(golfService.getNearbyCourses(user, lat, lon, k, unplayedOnly));
+    }
+
     @GetMapping("/rounds")
     public ResponseEntity<List<RoundDto>> getRounds(Principal principal) {
         User user = userService.resolveUser(principal);
@@ -32,6 +134,38 @@ public class GolfApiController {
         return ResponseEntity.ok(golfService.getRoundsForUser(user));
     }
 
+    // Its own path rather than extra parameters on /rounds, so adding a filter never turns the
+    // plain list into a page object, and each handler keeps one response shape.
+    @GetMapping("/rounds/page")
+    public ResponseEntity<RoundPage> getRoundPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            Principal principal
+    ) {
+        User user = userService.resolveUser(principal);
+        if (user == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.ok(golfService.getRoundPage(user, cursor, limit, courseId, from, to));
+    }
+
+    /** The caller's whole history as a download, streamed row by row rather than built in memory. */
+    @GetMapping("/rounds/export")
+    public ResponseEntity<StreamingResponseBody> exportRounds(
+            @RequestParam(required = false) String format,
+            Principal principal
+    ) {
+        User user = userService.resolveUser(principal);
+        if (user == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        RoundExportService.Format f = RoundExportService.Format.parse(format);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(f.contentType + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"runder." + f.extension + "\"")
+                .body(out -> roundExportService.export(user, f, out));
+    }
+
     @PostMapping("/rounds")
     public ResponseEntity<RoundDto> logRound(@RequestBody RoundRequest request, Principal principal) {
         User user = userService.resolveUser(principal);
@@ -39,6 +173,22 @@ public class GolfApiController {
         return ResponseEntity.ok(golfService.logRound(user, request));
     }
 
+    /**
+     * Years of scores in one upload: a CSV sheet or JSON, read from the request body as it arrives.
+     * Bad rows are reported back, not fatal; see RoundImportResult.
+     */
+    @PostMapping(value = "/rounds/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<RoundImportResult> importRounds(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body,
+            Principal principal
+    ) {
+        User user = userService.resolveUser(principal);
+        if (user == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.ok(roundImportService.importRounds(user, RoundImportService.Format.of(contentType),
+                contentType.getCharset(), body));
+    }
+
     @DeleteMapping("/rounds/{roundId}")
     public ResponseEntity<Void> deleteRound(@PathVariable Long roundId, Principal principal) {
         User user = userService.resolveUser(principal);
@@ -68,4 +218,17 @@ public class GolfApiController {
     }
 
     private record PlayedCourseRequest(String courseExternalId) {}
+
+    /** Many courses in one go; answers with what changed rather than the whole played list. */
+    @PostMapping("/courses/mark-played/batch")
+    public ResponseEntity<PlayedCoursesDelta> markCoursesAsPlayed(
+            @RequestBody PlayedCoursesRequest body,
+            Principal principal
+    ) {
+        User user = userService.resolveUser(principal);
+        if (user == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.ok(golfService.markCoursesPlayed(user.getId(), body.courseExternalIds()));
+    }
+
+    private record PlayedCoursesRequest(List<String> courseExternalIds) {}
 }
\ No newline at end of file
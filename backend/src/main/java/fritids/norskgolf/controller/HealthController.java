@@ -0,0 +1,35 @@
+package fritids.norskgolf.controller;
+
+import fritids.norskgolf.service.CourseSyncRunner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+public class HealthController {
+
+    @Autowired
+    private CourseSyncRunner courseSyncRunner;
+
+    /**
+     * Always 200 while the app can answer at all: reads are served from the existing course table
+     * during a sync, so "catalog not current yet" is information, not a reason to pull the
+     * instance out of rotation.
+     */
+    @GetMapping("/api/health")
+    public Map<String, Object> health() {
+        CourseSyncRunner.Status sync = courseSyncRunner.status();
+        Map<String, Object> catalog = new LinkedHashMap<>();
+        catalog.put("state", sync.state());
+        catalog.put("current", sync.catalogCurrent());
+        catalog.put("lastSyncMs", sync.lastSyncMs());
+        catalog.put("lastSyncFinishedAt", sync.lastFinishedAt());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", "UP");
+        body.put("catalog", catalog);
+        return body;
+    }
+}
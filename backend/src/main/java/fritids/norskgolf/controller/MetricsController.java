@@ -0,0 +1,62 @@
+package fritids.norskgolf.controller;
+
+import fritids.norskgolf.SessionAttributeCodec;
+import fritids.norskgolf.entities.User;
+import fritids.norskgolf.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+public class MetricsController {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SessionAttributeCodec sessionAttributeCodec;
+
+    // Comma-separated account emails allowed to read /api/metrics. Empty (the default) means nobody:
+    // a Google login is open to anyone, so being signed in says nothing about running the service.
+    @Value("${app.metrics.admins:}")
+    private String admins;
+
+    /**
+     * Per-instance counters, since startup. Not on /api/health: that one is public for the load
+     * balancer, and how often this instance writes what is nobody else's business. Security already
+     * requires a login for /api/**; on top of that only the configured operators get an answer.
+     */
+    @GetMapping("/api/metrics")
+    public Map<String, Object> metrics(Principal principal) {
+        if (!isAdmin(userService.resolveUser(principal))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        // How many logins rewrote the user row and how many skipped it.
+        Map<String, Object> logins = new LinkedHashMap<>();
+        logins.put("userWrites", userService.loginWrites());
+        logins.put("userWritesAvoided", userService.loginWritesAvoided());
+        // Session attribute rows written, their total size, and how many had to fall back to JDK bytes.
+        Map<String, Object> sessions = new LinkedHashMap<>();
+        sessions.put("attributeWrites", sessionAttributeCodec.writes());
+        sessions.put("attributeBytes", sessionAttributeCodec.bytesWritten());
+        sessions.put("jdkFallbacks", sessionAttributeCodec.jdkFallbacks());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("logins", logins);
+        body.put("sessions", sessions);
+        return body;
+    }
+
+    private boolean isAdmin(User user) {
+        if (user == null || user.getEmail() == null) return false;
+        return Arrays.stream(admins.split(",")).map(String::trim)
+                .anyMatch(admin -> !admin.isEmpty() && admin.equalsIgnoreCase(user.getEmail()));
+    }
+}
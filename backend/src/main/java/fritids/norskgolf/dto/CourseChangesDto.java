@@ -0,0 +1,16 @@
+package fritids.norskgolf.dto;
+
+import java.util.List;
+
+/**
+ * The course list relative to the version a client already has. With {@code snapshot} false,
+ * {@code courses} holds only courses that were added or changed and {@code removed} the ids to
+ * drop; with it true, {@code courses} is the whole list and replaces the client's copy. Either
+ * way, {@code version} is what the client sends as {@code since} next time.
+ */
+public record CourseChangesDto(
+        long version,
+        boolean snapshot,
+        List<CourseDto> courses,
+        List<Long> removed
+) {}
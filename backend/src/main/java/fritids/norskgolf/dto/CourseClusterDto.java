@@ -0,0 +1,8 @@
+package fritids.norskgolf.dto;
+
+public record CourseClusterDto(
+        double latitude,
+        double longitude,
+        int count,
+        int playedCount
+) {}
@@ -0,0 +1,13 @@
+package fritids.norskgolf.dto;
+
+import java.util.List;
+
+/**
+ * What the map needs for one viewport: individual courses, and at low zoom clusters standing in
+ * for groups of courses that would otherwise overlap. A cluster of one is sent as its course.
+ */
+public record CourseViewportDto(
+        int zoom,
+        List<CourseDto> courses,
+        List<CourseClusterDto> clusters
+) {}
@@ -1,5 +1,6 @@
 package fritids.norskgolf.dto;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +31,11 @@ public class DashboardStats {
             this.date = date;
             this.score = score;
         }
+
+        // For the JPQL constructor projection in RoundRepository.
+        public RoundSummary(Long id, String courseName, LocalDate date, int score) {
+            this(id, courseName, date.toString(), score);
+        }
     }
 
     // --- Inner Class: Region Stat ---
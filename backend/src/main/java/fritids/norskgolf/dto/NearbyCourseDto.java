@@ -0,0 +1,11 @@
+package fritids.norskgolf.dto;
+
+public record NearbyCourseDto(
+        Long id,
+        String name,
+        Double latitude,
+        Double longitude,
+        String externalId,
+        boolean played,
+        double distanceKm
+) {}
@@ -0,0 +1,13 @@
+package fritids.norskgolf.dto;
+
+import java.util.List;
+
+/**
+ * The result of marking many courses played at once: only what changed. {@code added} are the
+ * courses this call marked; ids that were already played are in neither list, and {@code unknown}
+ * holds the external ids that matched no course.
+ */
+public record PlayedCoursesDelta(
+        List<CourseDto> added,
+        List<String> unknown
+) {}
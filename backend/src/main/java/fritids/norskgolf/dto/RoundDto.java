@@ -1,5 +1,7 @@
 package fritids.norskgolf.dto;
 
+import java.time.LocalDate;
+
 public class RoundDto {
     private Long id;
     private Long courseId;
@@ -15,6 +17,11 @@ public class RoundDto {
         this.score = score;
     }
 
+    // For the JPQL constructor projection in RoundRepository, which hands over the column type.
+    public RoundDto(Long id, Long courseId, String courseName, LocalDate date, int score) {
+        this(id, courseId, courseName, date.toString(), score);
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public Long getCourseId() { return courseId; }
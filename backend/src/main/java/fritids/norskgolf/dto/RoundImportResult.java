@@ -0,0 +1,16 @@
+package fritids.norskgolf.dto;
+
+import java.util.List;
+
+/**
+ * What a bulk import did. Valid rows are imported even when others fail; {@code errors} says why
+ * each failed row was skipped, up to a cap, while {@code failed} is the full count.
+ */
+public record RoundImportResult(
+        int imported,
+        int failed,
+        List<RowError> errors
+) {
+    /** {@code row} is the line number in a CSV upload (the header is line 1), the item number in JSON. */
+    public record RowError(int row, String message) {}
+}
@@ -0,0 +1,12 @@
+package fritids.norskgolf.dto;
+
+import java.util.List;
+
+/**
+ * One page of a user's rounds, newest first. {@code nextCursor} is opaque to the client: send it
+ * back as {@code cursor} for the page after this one. It is null on the last page.
+ */
+public record RoundPage(
+        List<RoundDto> rounds,
+        String nextCursor
+) {}
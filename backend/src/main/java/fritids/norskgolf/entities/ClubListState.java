@@ -0,0 +1,47 @@
+package fritids.norskgolf.entities;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * The club list last applied to the course table, one row per bundled list. Startup compares the
+ * bundled file's hash against this row and skips the reconcile when nothing changed.
+ */
+@Entity
+@Table(name = "club_list_state")
+public class ClubListState {
+
+    @Id
+    @Column(name = "list_name", length = 100)
+    private String listName;
+
+    /** SHA-256 of the raw file, hex. */
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    /** Bumped every time a changed list is applied; 1 for the first. */
+    @Column(name = "catalog_version", nullable = false)
+    private long catalogVersion;
+
+    @Column(name = "applied_at", nullable = false)
+    private Instant appliedAt;
+
+    protected ClubListState() {}
+
+    public ClubListState(String listName) {
+        this.listName = listName;
+    }
+
+    // --- Getters & Setters ---
+    public String getListName() { return listName; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public long getCatalogVersion() { return catalogVersion; }
+    public void setCatalogVersion(long catalogVersion) { this.catalogVersion = catalogVersion; }
+
+    public Instant getAppliedAt() { return appliedAt; }
+    public void setAppliedAt(Instant appliedAt) { this.appliedAt = appliedAt; }
+}
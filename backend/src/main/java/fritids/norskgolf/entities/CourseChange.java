@@ -0,0 +1,67 @@
+package fritids.norskgolf.entities;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * One client-visible change the club reconciler made to a course. The id doubles as the change
+ * version: it only grows, so "everything after version N" is an id range. A course renamed and
+ * moved in one sync gets a row for each.
+ * <p>
+ * The reconciler assigns the ids itself, continuing from the latest, while it holds the lock on
+ * the club_list_state row. A generated id wouldn't do: ids are handed out at insert but become
+ * visible at commit, so with two syncs overlapping, a client could read the later sync's higher
+ * versions, move its cursor past them, and never see the earlier sync's lower ones. Assigned ids
+ * also let Hibernate batch the inserts, which IDENTITY prevented.
+ */
+@Entity
+@Table(name = "course_change", indexes = @Index(name = "idx_course_change_course", columnList = "course_id"))
+public class CourseChange implements Persistable<Long> {
+
+    @Id
+    private Long id;
+
+    // A plain id, not a relation: the log is read as ids and must never load a Course.
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private CourseChangeType type;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    // The id is set before save, so Spring Data can't use "id is null" to tell a new row: without
+    // this it would merge, and SELECT each row before inserting it.
+    @Transient
+    private boolean isNew = true;
+
+    protected CourseChange() {}
+
+    public CourseChange(long version, Long courseId, CourseChangeType type, Instant changedAt) {
+        this.id = version;
+        this.courseId = courseId;
+        this.type = type;
+        this.changedAt = changedAt;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { isNew = false; }
+
+    // --- Getters ---
+    @Override
+    public Long getId() { return id; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public Long getCourseId() { return courseId; }
+
+    public CourseChangeType getType() { return type; }
+
+    public Instant getChangedAt() { return changedAt; }
+}
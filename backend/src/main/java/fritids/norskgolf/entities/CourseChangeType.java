@@ -0,0 +1,11 @@
+package fritids.norskgolf.entities;
+
+public enum CourseChangeType {
+    INSERTED,
+    RENAMED,
+    MOVED,
+    /** The club id moved to this row, e.g. an OSM import matched to its club. */
+    RELINKED,
+    REACTIVATED,
+    DEACTIVATED
+}
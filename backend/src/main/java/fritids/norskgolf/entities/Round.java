@@ -1,13 +1,19 @@
 package fritids.norskgolf.entities;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 
 import java.time.LocalDate;
 
 @Entity
+// Matches the newest-first listing, so the overview's five latest rounds are an index range
+// read instead of a sort over everything the user has logged.
+@Table(indexes = @Index(name = "idx_round_user_date", columnList = "user_id, date desc, id desc"))
 public class Round {
     @Id
     @GeneratedValue
@@ -16,10 +22,12 @@ public class Round {
     private LocalDate date;
     private int score;
 
-    @ManyToOne
+    // LAZY: the round lists read through DTO projections, and deleteRound only needs the ids,
+    // which a proxy answers without a select.
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Course course; // Where was it played?
 
 
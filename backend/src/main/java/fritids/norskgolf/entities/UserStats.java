@@ -0,0 +1,33 @@
+package fritids.norskgolf.entities;
+
+import jakarta.persistence.*;
+
+/**
+ * Per-user aggregates kept up to date as rounds are logged and deleted, so the overview reads a
+ * row instead of counting a user's whole history. Only things that depend on the user's own
+ * writes live here: played and per-county counts also move when the club list reconcile
+ * deactivates a course, so those stay computed from the catalog.
+ */
+@Entity
+@Table(name = "user_stats")
+public class UserStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "round_count", nullable = false)
+    private long roundCount;
+
+    protected UserStats() {}
+
+    public UserStats(Long userId, long roundCount) {
+        this.userId = userId;
+        this.roundCount = roundCount;
+    }
+
+    // --- Getters ---
+    public Long getUserId() { return userId; }
+
+    public long getRoundCount() { return roundCount; }
+}
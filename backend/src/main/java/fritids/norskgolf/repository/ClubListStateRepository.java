@@ -0,0 +1,22 @@
+package fritids.norskgolf.repository;
+
+import fritids.norskgolf.entities.ClubListState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ClubListStateRepository extends JpaRepository<ClubListState, String> {
+
+    /**
+     * SELECT ... FOR UPDATE: a second instance syncing the same list waits here until the first
+     * commits, then sees its hash. Serialises the syncs, and with them the course_change versions.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ClubListState s where s.listName = :listName")
+    Optional<ClubListState> findForUpdate(String listName);
+}
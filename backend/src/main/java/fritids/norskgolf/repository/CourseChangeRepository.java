@@ -0,0 +1,22 @@
+package fritids.norskgolf.repository;
+
+import fritids.norskgolf.entities.CourseChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CourseChangeRepository extends JpaRepository<CourseChange, Long> {
+
+    /** The newest change version, 0 before the first change. */
+    @Query("select coalesce(max(c.id), 0) from CourseChange c")
+    long findLatestVersion();
+
+    @Query("select count(c) from CourseChange c where c.id > :after and c.id <= :upTo")
+    long countBetween(long after, long upTo);
+
+    @Query("select distinct c.courseId from CourseChange c where c.id > :after and c.id <= :upTo")
+    List<Long> findCourseIdsBetween(long after, long upTo);
+}
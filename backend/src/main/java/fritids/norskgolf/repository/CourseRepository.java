@@ -4,6 +4,7 @@ import fritids.norskgolf.entities.Course;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,5 +13,6 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     Optional<Course> findByExternalId(String externalId);
     List<Course> findByName(String name);
     List<Course> findByActiveTrue();
+    List<Course> findByExternalIdIn(Collection<String> externalIds);
 
 }
@@ -0,0 +1,30 @@
+package fritids.norskgolf.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Which database this is, for the few statements that differ between production (Postgres) and
+ * tests and local runs (H2). Asked once, on first use, and remembered: the answer can't change
+ * while the app is running.
+ */
+@Component
+public class DatabaseDialect {
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public DatabaseDialect(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isPostgres() {
+        Boolean known = postgres;
+        if (known == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            postgres = known = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return known;
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,8 +20,26 @@ public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
             "(f.requester = :u2 AND f.receiver = :u1)")
     Optional<Friendship> findRelationship(User u1, User u2);
 
-    // Find all ACCEPTED friendships for a user (Where user is either requester OR receiver)
-    @Query("SELECT f FROM Friendship f WHERE " +
+    /** Just what a search row needs to know about a friendship, without loading either user. */
+    interface Relationship {
+        Long getId();
+        Long getRequesterId();
+        Long getReceiverId();
+        FriendshipStatus getStatus();
+    }
+
+    // Every friendship between one user and a page of others, in one statement, for the search
+    // results: a findRelationship per hit cost a query (plus the EAGER sides) per row.
+    @Query("SELECT f.id AS id, f.requester.id AS requesterId, f.receiver.id AS receiverId, f.status AS status " +
+            "FROM Friendship f WHERE " +
+            "(f.requester.id = :userId AND f.receiver.id IN :otherIds) OR " +
+            "(f.receiver.id = :userId AND f.requester.id IN :otherIds)")
+    List<Relationship> findRelationships(Long userId, Collection<Long> otherIds);
+
+    // Find all ACCEPTED friendships for a user (Where user is either requester OR receiver).
+    // Both sides are fetched in the same statement: they are EAGER, and loading them one
+    // select per friend would undo the leaderboard's batched queries.
+    @Query("SELECT f FROM Friendship f JOIN FETCH f.requester JOIN FETCH f.receiver WHERE " +
             "(f.requester.id = :userId OR f.receiver.id = :userId) AND f.status = fritids.norskgolf.entities.FriendshipStatus.ACCEPTED")
     List<Friendship> findAllFriends(Long userId);
 
@@ -0,0 +1,17 @@
+package fritids.norskgolf.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Custom fragment of {@link PlayedCourseRepository}: marking a course played as a single
+ * idempotent statement instead of an exists-check followed by a save.
+ */
+public interface PlayedCourseWriter {
+
+    /** Marks the course played unless it already is. True if this call added the row. */
+    boolean insertIfAbsent(Long userId, Long courseId);
+
+    /** The same for many courses at once; returns the ids that were newly marked. */
+    List<Long> insertIfAbsent(Long userId, Collection<Long> courseIds);
+}
@@ -0,0 +1,74 @@
+package fritids.norskgolf.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Plain JDBC on the transaction's own connection, so it joins whatever transaction the caller has
+ * open. Postgres gets a native upsert: two requests racing on the same course both succeed, one
+ * inserting and one doing nothing, and neither trips the unique constraint. H2 (tests and local
+ * runs) has no ON CONFLICT outside its Postgres mode, so it gets a guarded insert and the rare
+ * lost race is caught; H2, unlike Postgres, doesn't abort the transaction over a failed statement.
+ */
+class PlayedCourseWriterImpl implements PlayedCourseWriter {
+
+    private static final String UPSERT =
+            "insert into played_course (user_id, course_id) values (?, ?) on conflict (user_id, course_id) do nothing";
+    // The whole set in one statement; RETURNING lists exactly the rows that were new.
+    private static final String UPSERT_MANY =
+            "insert into played_course (user_id, course_id) select ?, unnest(?::bigint[]) " +
+            "on conflict (user_id, course_id) do nothing returning course_id";
+    private static final String GUARDED_INSERT =
+            "insert into played_course (user_id, course_id) select ?, ? from (values (1)) " +
+            "where not exists (select 1 from played_course where user_id = ? and course_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseDialect dialect;
+
+    PlayedCourseWriterImpl(JdbcTemplate jdbcTemplate, DatabaseDialect dialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = dialect;
+    }
+
+    @Override
+    public boolean insertIfAbsent(Long userId, Long courseId) {
+        if (dialect.isPostgres()) {
+            return jdbcTemplate.update(UPSERT, userId, courseId) == 1;
+        }
+        try {
+            return jdbcTemplate.update(GUARDED_INSERT, userId, courseId, userId, courseId) == 1;
+        } catch (DuplicateKeyException e) {
+            return false; // a concurrent request inserted it between our check and our insert
+        }
+    }
+
+    @Override
+    public List<Long> insertIfAbsent(Long userId, Collection<Long> courseIds) {
+        List<Long> ids = new ArrayList<>(courseIds);
+        List<Long> inserted = new ArrayList<>();
+        if (ids.isEmpty()) return inserted;
+        if (dialect.isPostgres()) {
+            return jdbcTemplate.execute((ConnectionCallback<List<Long>>) c -> {
+                try (PreparedStatement ps = c.prepareStatement(UPSERT_MANY)) {
+                    ps.setLong(1, userId);
+                    ps.setArray(2, c.createArrayOf("bigint", ids.toArray()));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) inserted.add(rs.getLong(1));
+                    }
+                }
+                return inserted;
+            });
+        }
+        for (Long courseId : ids) {
+            if (insertIfAbsent(userId, courseId)) inserted.add(courseId);
+        }
+        return inserted;
+    }
+}
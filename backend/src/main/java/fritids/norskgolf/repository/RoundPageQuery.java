@@ -0,0 +1,22 @@
+package fritids.norskgolf.repository;
+
+import fritids.norskgolf.dto.RoundDto;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Custom fragment of {@link RoundRepository}: the keyset-paged round list, with only the
+ * predicates a request actually uses in the query.
+ */
+public interface RoundPageQuery {
+
+    /**
+     * Rounds in (date desc, id desc) order after the cursor ({@code afterDate}/{@code afterId},
+     * both null for the first page), optionally limited to a course and a date range. A null
+     * filter means "any".
+     */
+    List<RoundDto> findPage(Long userId, LocalDate afterDate, Long afterId, Long courseId,
+                            LocalDate from, LocalDate to, Limit limit);
+}
@@ -0,0 +1,59 @@
+package fritids.norskgolf.repository;
+
+import fritids.norskgolf.dto.RoundDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The query is assembled per request rather than written once with ":x is null or ..." guards.
+ * Postgres plans a statement without knowing which guards will be true, so a guarded keyset
+ * predicate can't become a bound on idx_round_user_date, and every deeper page read all the
+ * user's newer rows again. Here the first page is a plain index scan from the top, and later pages
+ * carry {@code r.date <= :afterDate}, which the index can seek to; the tie-break on id only
+ * filters the rows sharing that one date.
+ */
+class RoundPageQueryImpl implements RoundPageQuery {
+
+    private static final String SELECT = "select new fritids.norskgolf.dto.RoundDto(r.id, c.id, c.name, r.date, r.score) " +
+            "from Round r join r.course c where r.user.id = :userId";
+    private static final String ORDER = " order by r.date desc, r.id desc";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<RoundDto> findPage(Long userId, LocalDate afterDate, Long afterId, Long courseId,
+                                   LocalDate from, LocalDate to, Limit limit) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("userId", userId);
+        if (afterDate != null) {
+            params.put("afterDate", afterDate);
+            params.put("afterId", afterId);
+        }
+        if (courseId != null) params.put("courseId", courseId);
+        if (from != null) params.put("from", from);
+        if (to != null) params.put("to", to);
+
+        TypedQuery<RoundDto> query = entityManager.createQuery(
+                jpql(afterDate != null, courseId != null, from != null, to != null), RoundDto.class);
+        params.forEach(query::setParameter);
+        if (limit.isLimited()) query.setMaxResults(limit.max());
+        return query.getResultList();
+    }
+
+    static String jpql(boolean after, boolean course, boolean from, boolean to) {
+        StringBuilder jpql = new StringBuilder(SELECT);
+        if (after) jpql.append(" and r.date <= :afterDate and (r.date < :afterDate or r.id < :afterId)");
+        if (course) jpql.append(" and c.id = :courseId");
+        if (from) jpql.append(" and r.date >= :from");
+        if (to) jpql.append(" and r.date <= :to");
+        return jpql.append(ORDER).toString();
+    }
+}
@@ -1,15 +1,52 @@
 package fritids.norskgolf.repository;
 
+import fritids.norskgolf.dto.DashboardStats;
+import fritids.norskgolf.dto.RoundDto;
 import fritids.norskgolf.entities.Round;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface RoundRepository extends JpaRepository<Round, Long> {
+public interface RoundRepository extends JpaRepository<Round, Long>, RoundPageQuery {
     List<Round> findByUserIdOrderByDateDescIdDesc(Long userId);
+
+    // The round lists only need the course's id and name, so they select those columns straight
+    // into the DTO: one statement, no Round/Course/User entities and no follow-up selects for
+    // the many-to-one sides, however many rounds or distinct courses the user has.
+    @Query("select new fritids.norskgolf.dto.RoundDto(r.id, c.id, c.name, r.date, r.score) " +
+            "from Round r join r.course c where r.user.id = :userId order by r.date desc, r.id desc")
+    List<RoundDto> findDtosByUserId(Long userId);
+
+    // Same rows as findDtosByUserId, but read off a database cursor for the export. Without the
+    // fetch size the Postgres driver buffers the whole result before returning the first row.
+    // The caller must hold a transaction open and close the stream.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new fritids.norskgolf.dto.RoundDto(r.id, c.id, c.name, r.date, r.score) " +
+            "from Round r join r.course c where r.user.id = :userId order by r.date desc, r.id desc")
+    Stream<RoundDto> streamDtosByUserId(Long userId);
+
+    @Query("select new fritids.norskgolf.dto.DashboardStats$RoundSummary(r.id, c.name, r.date, r.score) " +
+            "from Round r join r.course c where r.user.id = :userId order by r.date desc, r.id desc")
+    List<DashboardStats.RoundSummary> findSummariesByUserId(Long userId, Limit limit);
     List<Round> findByUserIdAndCourseIdOrderByScoreAsc(Long userId, Long courseId);
     boolean existsByUserIdAndCourseId(Long userId, Long courseId);
     int countByUserId(Long userId);
+
+    interface UserRoundCount {
+        Long getUserId();
+        long getRoundCount();
+    }
+
+    // Users without rounds are simply absent from the result, not returned with a zero.
+    @Query("select r.user.id as userId, count(r) as roundCount from Round r where r.user.id in :userIds group by r.user.id")
+    List<UserRoundCount> countByUserIdIn(Collection<Long> userIds);
 }
@@ -21,7 +21,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByPublicId(String publicId);
 
     // Friend search: partial, case-insensitive over the fields a user would actually type.
-    // Excludes the caller; caller passes a Pageable to cap the result count.
+    // Excludes the caller; caller passes a Pageable to cap the result count. On Postgres each
+    // LOWER(column) has a trigram index (UserSearchIndexes), so keep the expressions as they are.
     @Query("SELECT u FROM User u WHERE u.id <> :excludeUserId AND (" +
             "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
             "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
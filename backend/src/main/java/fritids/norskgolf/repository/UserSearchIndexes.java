@@ -0,0 +1,58 @@
+package fritids.norskgolf.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Trigram indexes behind {@link UserRepository#searchUsers}. A {@code LIKE '%q%'} can't use a
+ * b-tree, so every search scanned the whole users table; a GIN index with pg_trgm's operator
+ * class answers the same LIKE from the index, and Postgres keeps it current on every insert and
+ * update, so syncUser's name and email changes are searchable at once. The indexed expressions
+ * must stay exactly the ones the query compares: LOWER(column).
+ *
+ * Hibernate's ddl-auto can't declare these, so they are created here on startup, idempotently.
+ * Best effort: on H2, or if the database user may not create the extension, search still works,
+ * just by scanning as before.
+ */
+@Component
+public class UserSearchIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndexes.class);
+
+    static final List<String> COLUMNS = List.of("first_name", "last_name", "email", "username");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseDialect dialect;
+
+    public UserSearchIndexes(JdbcTemplate jdbcTemplate, DatabaseDialect dialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = dialect;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            if (!dialect.isPostgres()) return;
+
+            jdbcTemplate.execute("create extension if not exists pg_trgm");
+            // A plain CREATE INDEX: users is small, and after the first boot IF NOT EXISTS makes
+            // this a catalog lookup. CONCURRENTLY would leave an invalid index behind on failure
+            // that IF NOT EXISTS would then skip forever.
+            for (String column : COLUMNS) {
+                jdbcTemplate.execute("create index if not exists idx_users_" + column + "_trgm"
+                        + " on users using gin (lower(" + column + ") gin_trgm_ops)");
+            }
+            log.info("User search trigram indexes in place on {}", COLUMNS);
+        } catch (DataAccessException e) {
+            log.warn("Could not create the user search trigram indexes; search will scan the users table: {}",
+                    e.getMessage());
+        }
+    }
+}
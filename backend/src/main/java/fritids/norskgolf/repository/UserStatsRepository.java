@@ -0,0 +1,18 @@
+package fritids.norskgolf.repository;
+
+import fritids.norskgolf.entities.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStats, Long>, UserStatsWriter {
+
+    // A single UPDATE rather than read-modify-write, so two rounds logged at once can't both read
+    // the old count. Callers run createIfAbsent first in the same transaction, so there is always
+    // a row to update.
+    @Modifying
+    @Query("update UserStats s set s.roundCount = s.roundCount + :delta where s.userId = :userId")
+    int addRounds(Long userId, long delta);
+}
@@ -0,0 +1,15 @@
+package fritids.norskgolf.repository;
+
+/**
+ * Custom fragment of {@link UserStatsRepository}: creating a user's stats row from an exact count
+ * as a single idempotent statement instead of a count followed by a save.
+ */
+public interface UserStatsWriter {
+
+    /**
+     * Creates the row from the user's current round count unless it already exists. Every write
+     * that changes the count calls this before touching rounds, in its own transaction, so the
+     * {@code addRounds} that follows always has a row to update.
+     */
+    void createIfAbsent(Long userId);
+}
@@ -0,0 +1,42 @@
+package fritids.norskgolf.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Same shape as {@link PlayedCourseWriterImpl}: the count and the insert are one statement, so no
+ * round can be logged between them. A writer that loses the race to create the row finds it there
+ * and increments it; its own round wasn't inserted yet when the winner counted, so it is counted
+ * exactly once, by that increment.
+ */
+class UserStatsWriterImpl implements UserStatsWriter {
+
+    private static final String UPSERT =
+            "insert into user_stats (user_id, round_count) select ?, count(*) from round where user_id = ? " +
+            "on conflict (user_id) do nothing";
+    private static final String GUARDED_INSERT =
+            "insert into user_stats (user_id, round_count) " +
+            "select ?, (select count(*) from round where user_id = ?) from (values (1)) " +
+            "where not exists (select 1 from user_stats where user_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseDialect dialect;
+
+    UserStatsWriterImpl(JdbcTemplate jdbcTemplate, DatabaseDialect dialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = dialect;
+    }
+
+    @Override
+    public void createIfAbsent(Long userId) {
+        if (dialect.isPostgres()) {
+            jdbcTemplate.update(UPSERT, userId, userId);
+            return;
+        }
+        try {
+            jdbcTemplate.update(GUARDED_INSERT, userId, userId, userId);
+        } catch (DuplicateKeyException e) {
+            // a concurrent request created it between our check and our insert
+        }
+    }
+}
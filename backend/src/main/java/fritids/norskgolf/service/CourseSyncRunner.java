@@ -0,0 +1,84 @@
+package fritids.norskgolf.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Runs the startup club sync off the main thread, so the instance serves reads from the existing
+ * course table straight away instead of waiting for the reconcile to commit. Whoever needs to
+ * know whether the catalog reflects the bundled list yet reads {@link #status()}.
+ */
+@Component
+public class CourseSyncRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseSyncRunner.class);
+
+    public enum State {
+        /** The app is up but the sync hasn't started or finished yet: serving the pre-sync table. */
+        SYNCING,
+        /** The course table reflects the bundled club list. */
+        CURRENT,
+        /** The sync was refused, failed, or was a dry run: serving whatever the table held before. */
+        STALE
+    }
+
+    public record Status(State state, boolean catalogCurrent, Long lastSyncMs, Instant lastFinishedAt) {}
+
+    private final CourseSyncService courseSyncService;
+    private final TaskExecutor taskExecutor;
+
+    /** Off in tests that need the synced table the moment the context is up. */
+    @Value("${app.clubs.background-sync:true}")
+    private boolean background;
+
+    private volatile State state = State.SYNCING;
+    private volatile Long lastSyncMs;
+    private volatile Instant lastFinishedAt;
+
+    public CourseSyncRunner(CourseSyncService courseSyncService,
+                            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.courseSyncService = courseSyncService;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!background) {
+            run();
+            return;
+        }
+        // Boot's application executor rather than a thread of our own, so shutdown waits for a
+        // sync mid-transaction (spring.task.execution.shutdown.*) before the pool is torn down.
+        taskExecutor.execute(this::run);
+    }
+
+    void run() {
+        state = State.SYNCING;
+        long start = System.nanoTime();
+        boolean current;
+        try {
+            current = courseSyncService.syncOnStartup();
+        } catch (RuntimeException e) {
+            // syncOnStartup reports a bad list itself; this is the transaction failing to commit.
+            log.error("Club sync failed", e);
+            current = false;
+        }
+        lastSyncMs = (System.nanoTime() - start) / 1_000_000;
+        lastFinishedAt = Instant.now();
+        state = current ? State.CURRENT : State.STALE;
+        log.info("Club sync finished in {} ms, catalog {}", lastSyncMs, state);
+    }
+
+    public Status status() {
+        State s = state;
+        return new Status(s, s == State.CURRENT, lastSyncMs, lastFinishedAt);
+    }
+}
@@ -1,20 +1,31 @@
 package fritids.norskgolf.service;
 
+import fritids.norskgolf.entities.ClubListState;
 import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.entities.CourseChange;
+import fritids.norskgolf.entities.CourseChangeType;
+import fritids.norskgolf.repository.ClubListStateRepository;
+import fritids.norskgolf.repository.CourseChangeRepository;
 import fritids.norskgolf.repository.CourseRepository;
+import fritids.norskgolf.service.catalog.CourseCatalogProvider;
 import fritids.norskgolf.service.clubs.ClubListLoader;
 import fritids.norskgolf.service.clubs.ClubMatcher;
 import fritids.norskgolf.service.clubs.ClubRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class CourseSyncService {
@@ -25,14 +36,29 @@ public class CourseSyncService {
     private final CourseRepository courseRepository;
     private final ClubListLoader loader;
     private final ClubMatcher matcher;
+    private final CourseCatalogProvider courseCatalog;
+    private final ClubListStateRepository clubListStateRepository;
+    private final CourseChangeRepository courseChangeRepository;
 
     @Value("${app.clubs.dry-run:false}")
     private boolean dryRun;
 
-    public CourseSyncService(CourseRepository courseRepository, ClubListLoader loader, ClubMatcher matcher) {
+    /**
+     * Reconcile even if the bundled list is byte-for-byte the one already applied — for when the
+     * matcher itself changed, or someone edited the course table by hand.
+     */
+    @Value("${app.clubs.force-resync:false}")
+    private boolean forceResync;
+
+    public CourseSyncService(CourseRepository courseRepository, ClubListLoader loader, ClubMatcher matcher,
+                             CourseCatalogProvider courseCatalog, ClubListStateRepository clubListStateRepository,
+                             CourseChangeRepository courseChangeRepository) {
         this.courseRepository = courseRepository;
         this.loader = loader;
         this.matcher = matcher;
+        this.courseCatalog = courseCatalog;
+        this.clubListStateRepository = clubListStateRepository;
+        this.courseChangeRepository = courseChangeRepository;
     }
 
     public record SyncSummary(int matched, int inserted, int deactivated, List<String> ambiguous) {}
@@ -45,31 +71,68 @@ public class CourseSyncService {
     /** One planned write. A null course means "insert this club". */
     private record Decision(Course course, ClubRecord club) {}
 
+    /**
+     * Applies the bundled club list unless it is the one already applied. Returns true when the
+     * course table now reflects the list — applied just now or unchanged — and false when the
+     * list was refused, unreadable, or only dry-run. Never throws: {@link CourseSyncRunner} calls
+     * this at startup, where a bad list must not stop the app.
+     */
     // @Transactional belongs HERE, not only on reconcile(): syncOnStartup calls reconcile on
-    // itself, and self-invocation never passes the Spring proxy. Spring's event multicaster does
-    // invoke this listener through the proxy, so the whole import runs as one transaction.
+    // itself, and self-invocation never passes the Spring proxy. CourseSyncRunner calls this
+    // through the injected proxy, so the whole import runs as one transaction.
     @Transactional
-    @EventListener(ApplicationReadyEvent.class)
-    public void syncOnStartup() {
+    public boolean syncOnStartup() {
         SyncSummary summary;
         try {
+            String hash = loader.contentHash(CLUB_LIST);
+            // Locked for the rest of the transaction. Two instances booting together would otherwise
+            // both reconcile, and their change versions could commit out of order (see CourseChange).
+            // On the very first boot there is no row to lock yet; then the loser of the race fails
+            // on the state row's primary key at commit and rolls back whole, versions included.
+            ClubListState state = clubListStateRepository.findForUpdate(CLUB_LIST).orElse(null);
+            // The bundled list only changes with a deploy, so most boots would re-derive exactly
+            // the table they already have. A dry run always runs: its whole point is the log.
+            if (!dryRun && !forceResync && state != null && hash.equals(state.getContentHash())) {
+                log.info("Club list unchanged since {} (catalog version {}), sync skipped",
+                        state.getAppliedAt(), state.getCatalogVersion());
+                return true;
+            }
             summary = reconcile(loader.load(CLUB_LIST), dryRun);
+            if (!dryRun) recordApplied(state, hash);
         } catch (RuntimeException e) {
             // A refused or unreadable club list must not stop the app from starting: the existing
             // course table is perfectly usable, it just isn't updated this boot.
             log.error("Club sync skipped, database left untouched: {}", e.getMessage());
-            return;
+            return false;
         }
         log.info("Club sync{}: {} matched, {} inserted, {} deactivated, {} ambiguous",
                 dryRun ? " (DRY RUN)" : "", summary.matched(), summary.inserted(),
                 summary.deactivated(), summary.ambiguous().size());
         summary.ambiguous().forEach(name -> log.warn("Ambiguous club, needs a human: {}", name));
+        return !dryRun;
+    }
+
+    // Same transaction as the reconcile it records: a list only counts as applied if its writes committed.
+    private void recordApplied(ClubListState state, String hash) {
+        if (state == null) state = new ClubListState(CLUB_LIST);
+        state.setContentHash(hash);
+        state.setCatalogVersion(state.getCatalogVersion() + 1);
+        state.setAppliedAt(Instant.now());
+        clubListStateRepository.save(state);
     }
 
     @Transactional
     public SyncSummary reconcile(List<ClubRecord> clubs, boolean dryRunMode) {
-        List<Course> existing = new ArrayList<>(courseRepository.findAll());
-        List<Course> unclaimed = new ArrayList<>(existing);
+        List<Course> existing = courseRepository.findAll();
+        Map<String, Course> byExternalId = new HashMap<>();
+        for (Course c : existing) {
+            if (c.getExternalId() != null) byExternalId.put(c.getExternalId(), c);
+        }
+        // Identity, not equals: Course.equals compares externalIds, and a legacy row may have none.
+        Set<Course> unclaimed = Collections.newSetFromMap(new IdentityHashMap<>());
+        unclaimed.addAll(existing);
+        // The same unclaimed courses, indexed by position for the matcher's radius lookups.
+        ClubMatcher.Candidates candidates = ClubMatcher.Candidates.of(existing);
         List<String> ambiguous = new ArrayList<>();
         List<Decision> decisions = new ArrayList<>();
         int matched = 0;
@@ -79,14 +142,11 @@ public class CourseSyncService {
         // setter alone would be flushed at commit, so no decision may touch one until the
         // runaway guard below has passed and dryRunMode has been checked.
         for (ClubRecord club : clubs) {
-            Course byId = existing.stream()
-                    .filter(c -> club.clubId().equals(c.getExternalId()))
-                    .findFirst()
-                    .orElse(null);
+            Course byId = byExternalId.get(club.clubId());
 
             ClubMatcher.Match match = byId != null
                     ? new ClubMatcher.Match(byId, false)
-                    : matcher.match(club, unclaimed);
+                    : matcher.match(club, candidates);
 
             if (match.ambiguous()) {
                 ambiguous.add(club.name());
@@ -94,7 +154,10 @@ public class CourseSyncService {
                 // winner among several nearby candidates. Pull those candidates out of
                 // "unclaimed" so they are not deactivated as if the club were absent — they
                 // keep their current state until a human resolves the collision.
-                unclaimed.removeAll(matcher.nearby(club, unclaimed));
+                for (Course near : matcher.nearby(club, candidates)) {
+                    unclaimed.remove(near);
+                    candidates.remove(near);
+                }
                 continue;
             }
 
@@ -102,13 +165,17 @@ public class CourseSyncService {
             if (course == null) {
                 inserted++;
             } else {
-                unclaimed.removeIf(c -> c == course);
+                unclaimed.remove(course);
+                candidates.remove(course);
                 matched++;
             }
             decisions.add(new Decision(course, club));
         }
 
-        List<Course> toDeactivate = unclaimed.stream().filter(Course::isActive).toList();
+        List<Course> toDeactivate = existing.stream()
+                .filter(unclaimed::contains)
+                .filter(Course::isActive)
+                .toList();
 
         // Phase 2: guard. A wrong or truncated list looks exactly like "almost every club closed".
         long activeBefore = existing.stream().filter(Course::isActive).count();
@@ -120,13 +187,16 @@ public class CourseSyncService {
 
         // Phase 3: log every decision, then write. A dry run logs all of it so the diff can be
         // read; a real run logs only what changed, so a stable list doesn't spam every boot.
+        List<Course> toWrite = new ArrayList<>();
+        List<PendingChange> changes = new ArrayList<>();
         for (Decision d : decisions) {
             if (d.course() == null) {
                 log.info("Club sync: INSERT {} ({})", d.club().name(), d.club().clubId());
                 if (!dryRunMode) {
                     Course course = new Course();
                     apply(d.club(), course);
-                    courseRepository.save(course);
+                    toWrite.add(course);
+                    changes.add(new PendingChange(course, CourseChangeType.INSERTED));
                 }
             } else {
                 boolean renamed = !d.club().name().equals(d.course().getName());
@@ -135,8 +205,11 @@ public class CourseSyncService {
                             d.course().getName(), d.club().name(), d.club().clubId(), distance(d));
                 }
                 if (!dryRunMode) {
+                    for (CourseChangeType type : changesFor(d.club(), d.course())) {
+                        changes.add(new PendingChange(d.course(), type));
+                    }
                     apply(d.club(), d.course());
-                    courseRepository.save(d.course());
+                    toWrite.add(d.course());
                 }
             }
         }
@@ -146,13 +219,47 @@ public class CourseSyncService {
                     leftover.getName(), leftover.getExternalId());
             if (!dryRunMode) {
                 leftover.setActive(false);
-                courseRepository.save(leftover);
+                toWrite.add(leftover);
+                changes.add(new PendingChange(leftover, CourseChangeType.DEACTIVATED));
             }
         }
 
+        // One saveAll rather than a save per row, so the updates go out as JDBC batches
+        // (hibernate.jdbc.batch_size). Unchanged matched rows cost nothing: dirty checking skips them.
+        if (!dryRunMode) {
+            courseRepository.saveAll(toWrite);
+            // After saveAll, so inserted courses have their ids. Same transaction: the log never
+            // describes a sync that didn't commit. Versions continue from the latest one, read
+            // while syncOnStartup holds the club_list_state lock.
+            Instant now = Instant.now();
+            long version = courseChangeRepository.findLatestVersion();
+            List<CourseChange> entries = new ArrayList<>(changes.size());
+            for (PendingChange c : changes) {
+                entries.add(new CourseChange(++version, c.course().getId(), c.type(), now));
+            }
+            courseChangeRepository.saveAll(entries);
+            // The shared catalog is only swapped once these writes are visible: a reader reloading
+            // before the commit would cache the pre-sync rows under a new version.
+            courseCatalog.invalidateAfterCommit();
+        }
+
         return new SyncSummary(matched, inserted, toDeactivate.size(), ambiguous);
     }
 
+    private record PendingChange(Course course, CourseChangeType type) {}
+
+    /** What applying the club to this existing course changes, as far as a client can see. */
+    private static List<CourseChangeType> changesFor(ClubRecord club, Course course) {
+        List<CourseChangeType> types = new ArrayList<>(1);
+        if (!course.isActive()) types.add(CourseChangeType.REACTIVATED);
+        if (!club.name().equals(course.getName())) types.add(CourseChangeType.RENAMED);
+        if (!Objects.equals(course.getLatitude(), club.lat()) || !Objects.equals(course.getLongitude(), club.lon())) {
+            types.add(CourseChangeType.MOVED);
+        }
+        if (!club.clubId().equals(course.getExternalId())) types.add(CourseChangeType.RELINKED);
+        return types;
+    }
+
     private static String distance(Decision d) {
         Course c = d.course();
         if (c.getLatitude() == null || c.getLongitude() == null) return "no coordinates";
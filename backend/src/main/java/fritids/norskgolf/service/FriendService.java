@@ -1,27 +1,27 @@
 package fritids.norskgolf.service;
 
 import fritids.norskgolf.dto.FriendDto;
-import fritids.norskgolf.entities.Course;
 import fritids.norskgolf.entities.Friendship;
 import fritids.norskgolf.entities.FriendshipStatus;
 import fritids.norskgolf.entities.User;
-import fritids.norskgolf.repository.CourseRepository;
 import fritids.norskgolf.repository.FriendshipRepository;
 import fritids.norskgolf.repository.PlayedCourseRepository;
 import fritids.norskgolf.repository.RoundRepository;
 import fritids.norskgolf.repository.UserRepository;
+import fritids.norskgolf.service.catalog.CourseBitmap;
+import fritids.norskgolf.service.catalog.CourseCatalog;
+import fritids.norskgolf.service.catalog.CourseCatalogProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,7 +31,7 @@ public class FriendService {
     @Autowired private FriendshipRepository friendshipRepository;
     @Autowired private PlayedCourseRepository playedCourseRepository;
     @Autowired private RoundRepository roundRepository;
-    @Autowired private CourseRepository courseRepository;
+    @Autowired private CourseCatalogProvider courseCatalog;
 
     private static final int MIN_QUERY_LENGTH = 3;
     private static final int MAX_SEARCH_RESULTS = 20;
@@ -44,10 +44,21 @@ public class FriendService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search must be at least " + MIN_QUERY_LENGTH + " characters");
         }
 
-        return userRepository.searchUsers(q, currentUser.getId(), PageRequest.of(0, MAX_SEARCH_RESULTS)).stream()
+        List<User> hits = userRepository.searchUsers(q, currentUser.getId(), PageRequest.of(0, MAX_SEARCH_RESULTS));
+        if (hits.isEmpty()) return List.of();
+
+        // Every relationship on the page in one query, keyed by the other user's id.
+        Map<Long, FriendshipRepository.Relationship> relationships = new HashMap<>();
+        for (FriendshipRepository.Relationship r : friendshipRepository.findRelationships(currentUser.getId(),
+                hits.stream().map(User::getId).toList())) {
+            relationships.put(r.getRequesterId().equals(currentUser.getId()) ? r.getReceiverId() : r.getRequesterId(), r);
+        }
+
+        return hits.stream()
                 .map(u -> {
-                    Optional<Friendship> relationship = friendshipRepository.findRelationship(currentUser, u);
-                    String status = relationship.map(f -> statusOf(f, currentUser)).orElse("NONE");
+                    FriendshipRepository.Relationship relationship = relationships.get(u.getId());
+                    String status = relationship == null ? "NONE"
+                            : statusOf(relationship.getStatus(), relationship.getRequesterId(), currentUser);
                     boolean isFriend = "FRIENDS".equals(status);
 
                     // PRIVACY: Friends -> Full Name + avatar. Strangers -> First Name, no avatar.
@@ -64,7 +75,7 @@ public class FriendService {
                             isFriend || typedEmail ? u.getEmail() : null,
                             status,
                             // The client needs this to cancel a request it sent (DELETE /api/friends/{id}).
-                            relationship.map(Friendship::getId).orElse(null),
+                            relationship == null ? null : relationship.getId(),
                             0, 0,
                             isFriend ? u.getAvatar() : null,
                             0, 0
@@ -139,29 +150,37 @@ public class FriendService {
 
     // --- 6. LEADERBOARD ---
     public List<FriendDto> getLeaderboard(User me) {
-        // Load the active-course picture ONCE for the whole leaderboard, then reuse it for
-        // every row. Doing it per row would be a query per friend for data identical on
-        // each one.
-        List<Course> activeCourses = courseRepository.findByActiveTrue();
-        Set<Long> activeIds = activeCourses.stream()
-                .map(Course::getId)
-                .collect(Collectors.toSet());
-        // Null counties bucket under "Unknown", exactly as GolfService.getDashboardStats
-        // does, so a fylke count means the same thing on both screens.
-        Map<String, Set<Long>> coursesByCounty = activeCourses.stream()
-                .collect(Collectors.groupingBy(
-                        c -> c.getCounty() != null ? c.getCounty() : "Unknown",
-                        Collectors.mapping(Course::getId, Collectors.toSet())));
-
-        List<FriendDto> leaderboard = friendshipRepository.findAllFriends(me.getId()).stream()
-                .map(f -> {
-                    User friend = f.getRequester().getId().equals(me.getId()) ? f.getReceiver() : f.getRequester();
-                    return mapToDto(friend, "ACCEPTED", f.getId(), activeIds, coursesByCounty);
-                })
+        // Read the active-course picture ONCE for the whole leaderboard, then reuse it for
+        // every row. The snapshot is shared with GolfService.getDashboardStats, and null
+        // counties bucket under "Unknown" there too, so a fylke count means the same thing
+        // on both screens.
+        CourseCatalog catalog = courseCatalog.current();
+
+        List<Friendship> friendships = friendshipRepository.findAllFriends(me.getId());
+        List<Long> userIds = new ArrayList<>(friendships.size() + 1);
+        userIds.add(me.getId());
+        for (Friendship f : friendships) userIds.add(otherParty(f, me).getId());
+
+        // Two grouped queries for the whole list, however many friends there are: every row's
+        // played ids, and every row's round count. Counting played courses with a count query
+        // instead would include courses the club reconciler has since deactivated, inflating a
+        // row above what the same user sees on /oversikt — GolfService counts active only, and
+        // so does the bitmap.
+        Map<Long, List<Long>> playedByUser = new HashMap<>();
+        for (PlayedCourseRepository.UserCourseId row : playedCourseRepository.findCourseIdsByUserIdIn(userIds)) {
+            playedByUser.computeIfAbsent(row.getUserId(), k -> new ArrayList<>()).add(row.getCourseId());
+        }
+        Map<Long, Long> roundsByUser = new HashMap<>();
+        for (RoundRepository.UserRoundCount row : roundRepository.countByUserIdIn(userIds)) {
+            roundsByUser.put(row.getUserId(), row.getRoundCount());
+        }
+
+        List<FriendDto> leaderboard = friendships.stream()
+                .map(f -> mapToDto(otherParty(f, me), "ACCEPTED", f.getId(), catalog, playedByUser, roundsByUser))
                 .collect(Collectors.toList());
 
         // Add Me
-        leaderboard.add(mapToDto(me, "ME", null, activeIds, coursesByCounty));
+        leaderboard.add(mapToDto(me, "ME", null, catalog, playedByUser, roundsByUser));
 
         // Sort
         leaderboard.sort(Comparator.comparingInt(FriendDto::getTotalCourses).reversed());
@@ -170,18 +189,12 @@ public class FriendService {
 
     // --- HELPERS ---
 
-    private FriendDto mapToDto(User user, String status, Long friendshipId,
-                               Set<Long> activeIds, Map<String, Set<Long>> coursesByCounty) {
-        // One played-ids query per row, and it answers both questions below. Counting
-        // played courses with countByUserId instead would include courses the club
-        // reconciler has since deactivated, inflating this row above what the same user
-        // sees on /oversikt — GolfService counts active only.
-        // ponytail: still a query per row. If a friend list ever gets long, fetch every
-        // row's played ids in one "where user_id in (...)" query instead.
-        Set<Long> played = new HashSet<>(playedCourseRepository.findCourseIdsByUserId(user.getId()));
-
-        int activePlayed = (int) activeIds.stream().filter(played::contains).count();
-        int fylkerComplete = (int) coursesByCounty.values().stream()
+    private FriendDto mapToDto(User user, String status, Long friendshipId, CourseCatalog catalog,
+                               Map<Long, List<Long>> playedByUser, Map<Long, Long> roundsByUser) {
+        CourseBitmap played = catalog.bitmapOf(playedByUser.getOrDefault(user.getId(), List.of()));
+
+        int activePlayed = played.cardinality();
+        int fylkerComplete = (int) catalog.countyMasks().values().stream()
                 .filter(played::containsAll)
                 .count();
 
@@ -192,13 +205,17 @@ public class FriendService {
                 status,
                 friendshipId,
                 activePlayed,
-                (int) roundRepository.countByUserId(user.getId()),
+                roundsByUser.getOrDefault(user.getId(), 0L).intValue(),
                 user.getAvatar(),
                 fylkerComplete,
-                coursesByCounty.size()
+                catalog.countyMasks().size()
         );
     }
 
+    private static User otherParty(Friendship friendship, User me) {
+        return friendship.getRequester().getId().equals(me.getId()) ? friendship.getReceiver() : friendship.getRequester();
+    }
+
     private String resolveDisplayName(User user) {
         if (user.getUsername() != null && !user.getUsername().isEmpty() && !user.getUsername().contains("@")) {
             return user.getUsername();
@@ -209,9 +226,11 @@ public class FriendService {
         return user.getEmail();
     }
 
-    private String statusOf(Friendship friendship, User me) {
-        if (friendship.getStatus() == FriendshipStatus.ACCEPTED) return "FRIENDS";
-        if (friendship.getRequester().getId().equals(me.getId())) return "SENT";
+    // Only searchUsers calls this. It takes the bare status and requester id because the search
+    // reads them from the findRelationships projection, which loads no Friendship entity.
+    private String statusOf(FriendshipStatus status, Long requesterId, User me) {
+        if (status == FriendshipStatus.ACCEPTED) return "FRIENDS";
+        if (requesterId.equals(me.getId())) return "SENT";
         return "RECEIVED";
     }
 }
\ No newline at end of file
@@ -1,23 +1,35 @@
 package fritids.norskgolf.service;
 
+import fritids.norskgolf.dto.CourseChangesDto;
+import fritids.norskgolf.dto.CourseClusterDto;
 import fritids.norskgolf.dto.CourseDto;
+import fritids.norskgolf.dto.CourseViewportDto;
 import fritids.norskgolf.dto.DashboardStats;
+import fritids.norskgolf.dto.NearbyCourseDto;
+import fritids.norskgolf.dto.PlayedCoursesDelta;
 import fritids.norskgolf.dto.RoundDto;
+import fritids.norskgolf.dto.RoundPage;
 import fritids.norskgolf.dto.RoundRequest;
 import fritids.norskgolf.entities.Course;
-import fritids.norskgolf.entities.PlayedCourse;
 import fritids.norskgolf.entities.Round;
 import fritids.norskgolf.entities.User;
+import fritids.norskgolf.entities.UserStats;
+import fritids.norskgolf.repository.CourseChangeRepository;
 import fritids.norskgolf.repository.CourseRepository;
 import fritids.norskgolf.repository.PlayedCourseRepository;
 import fritids.norskgolf.repository.RoundRepository;
-import fritids.norskgolf.repository.UserRepository;
+import fritids.norskgolf.repository.UserStatsRepository;
+import fritids.norskgolf.service.catalog.CourseBitmap;
+import fritids.norskgolf.service.catalog.CourseCatalog;
+import fritids.norskgolf.service.catalog.CourseCatalogProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.*;
@@ -29,19 +41,19 @@ public class GolfService {
     @Autowired private CourseRepository courseRepository;
     @Autowired private PlayedCourseRepository playedCourseRepository;
     @Autowired private RoundRepository roundRepository;
-    @Autowired private UserRepository userRepository;
+    @Autowired private CourseCatalogProvider courseCatalog;
+    @Autowired private CourseChangeRepository courseChangeRepository;
+    @Autowired private UserStatsRepository userStatsRepository;
 
     // --- 1. GET ALL COURSES ---
     public List<CourseDto> getAllCourses(User currentUser) {
-        List<Course> allCourses = courseRepository.findByActiveTrue();
-        Set<Long> playedIds = new HashSet<>();
+        CourseCatalog catalog = courseCatalog.current();
+        CourseBitmap played = catalog.bitmapOf(currentUser != null
+                ? playedCourseRepository.findCourseIdsByUserId(currentUser.getId())
+                : List.of());
 
-        if (currentUser != null) {
-            playedIds.addAll(playedCourseRepository.findCourseIdsByUserId(currentUser.getId()));
-        }
-
-        return allCourses.stream()
-                .map(c -> new CourseDto(c.getId(), c.getName(), c.getLatitude(), c.getLongitude(), c.getExternalId(), playedIds.contains(c.getId())))
+        return catalog.entries().stream()
+                .map(e -> e.toDto(played.get(e.index())))
                 .collect(Collectors.toList());
     }
 
@@ -56,50 +68,118 @@ public class GolfService {
     private static final int MIN_SCORE = 18;
     private static final int MAX_SCORE = 200;
 
-    // --- 3. LOG ROUND ---
-    @Transactional
-    public RoundDto logRound(User user, RoundRequest request) {
-        // Validate before touching the DB — the client-side checks in MapView.js are bypassable.
-        if (request.getCourseId() == null) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "courseId is required");
-        }
-        if (request.getScore() < MIN_SCORE || request.getScore() > MAX_SCORE) {
+    /** The score and date checks every round goes through, whether logged singly or imported. */
+    static LocalDate validateRound(int score, String date) {
+        if (score < MIN_SCORE || score > MAX_SCORE) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Score must be between " + MIN_SCORE + " and " + MAX_SCORE);
         }
-        LocalDate date;
+        LocalDate parsed;
         try {
-            date = LocalDate.parse(request.getDate());
+            parsed = LocalDate.parse(date);
         } catch (DateTimeParseException | NullPointerException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Date must be a valid yyyy-MM-dd date");
         }
-        if (date.isAfter(LocalDate.now())) {
+        if (parsed.isAfter(LocalDate.now())) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Date cannot be in the future");
         }
+        return parsed;
+    }
+
+    // --- 3. LOG ROUND ---
+    @Transactional
+    public RoundDto logRound(User user, RoundRequest request) {
+        // Validate before touching the DB — the client-side checks in MapView.js are bypassable.
+        if (request.getCourseId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "courseId is required");
+        }
+        LocalDate date = validateRound(request.getScore(), request.getDate());
 
         Course course = courseRepository.findById(request.getCourseId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
 
-        // A. Create Round
+        // A. Create Round. The stats row first: it is seeded from a count that mustn't include
+        // this round, which the increment below adds.
+        userStatsRepository.createIfAbsent(user.getId());
         Round round = new Round();
         round.setUser(user);
         round.setCourse(course);
         round.setScore(request.getScore());
         round.setDate(date);
         Round savedRound = roundRepository.save(round);
+        userStatsRepository.addRounds(user.getId(), 1);
 
-        // B. Auto-mark as Played
-        if (!playedCourseRepository.existsByUserIdAndCourseId(user.getId(), course.getId())) {
-            playedCourseRepository.save(new PlayedCourse(user, course));
-        }
+        // B. Auto-mark as Played — one idempotent statement, so a double-submit can't trip the
+        // (user_id, course_id) unique constraint.
+        playedCourseRepository.insertIfAbsent(user.getId(), course.getId());
 
         return new RoundDto(savedRound.getId(), savedRound.getCourse().getId(), savedRound.getCourse().getName(), savedRound.getDate().toString(), savedRound.getScore());
     }
 
     // --- 4. GET ROUNDS FOR USER ---
     public List<RoundDto> getRoundsForUser(User user) {
-        return roundRepository.findByUserIdOrderByDateDescIdDesc(user.getId()).stream()
-                .map(r -> new RoundDto(r.getId(), r.getCourse().getId(), r.getCourse().getName(), r.getDate().toString(), r.getScore()))
-                .collect(Collectors.toList());
+        return roundRepository.findDtosByUserId(user.getId());
+    }
+
+    // --- 4b. ROUNDS, A PAGE AT A TIME ---
+    static final int ROUND_PAGE_DEFAULT = 50;
+    static final int ROUND_PAGE_MAX = 200;
+
+    public RoundPage getRoundPage(User user, String cursor, Integer limit, Long courseId, String from, String to) {
+        int size = limit != null ? limit : ROUND_PAGE_DEFAULT;
+        if (size < 1 || size > ROUND_PAGE_MAX) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + ROUND_PAGE_MAX);
+        }
+        LocalDate fromDate = parseFilterDate(from, "from");
+        LocalDate toDate = parseFilterDate(to, "to");
+        if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+
+        LocalDate afterDate = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] key = decodeCursor(cursor);
+            afterDate = LocalDate.parse(key[0]);
+            afterId = Long.parseLong(key[1]);
+        }
+
+        // One row more than asked for says whether there is a next page, without a count query.
+        List<RoundDto> rows = roundRepository.findPage(user.getId(), afterDate, afterId, courseId,
+                fromDate, toDate, Limit.of(size + 1));
+        if (rows.size() <= size) return new RoundPage(rows, null);
+
+        List<RoundDto> page = rows.subList(0, size);
+        RoundDto last = page.get(size - 1);
+        return new RoundPage(new ArrayList<>(page), encodeCursor(last.getDate(), last.getId()));
+    }
+
+    private static LocalDate parseFilterDate(String value, String name) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, name + " must be a valid yyyy-MM-dd date");
+        }
+    }
+
+    // The cursor is the last row's sort key, "date:id", base64url so clients treat it as opaque.
+    static String encodeCursor(String date, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((date + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (key.length == 2) {
+                LocalDate.parse(key[0]);
+                Long.parseLong(key[1]);
+                return key;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // falls through to the 400 below; NumberFormatException is an IllegalArgumentException
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursor is not one this API handed out");
     }
 
     // --- 5. DELETE ROUND ---
@@ -113,7 +193,9 @@ public class GolfService {
         }
 
         Course course = round.getCourse();
+        userStatsRepository.createIfAbsent(user.getId());
         roundRepository.delete(round);
+        userStatsRepository.addRounds(user.getId(), -1);
 
         // Smart Logic: Un-mark course if no rounds left
         if (!roundRepository.existsByUserIdAndCourseId(user.getId(), course.getId())) {
@@ -124,59 +206,235 @@ public class GolfService {
 
     // --- 5. DASHBOARD STATS (The Big Logic) ---
     public DashboardStats getDashboardStats(User user) {
-        List<Course> allCourses = courseRepository.findByActiveTrue();
-        Set<Long> playedIds = new HashSet<>(playedCourseRepository.findCourseIdsByUserId(user.getId()));
+        CourseCatalog catalog = courseCatalog.current();
+        CourseBitmap played = catalog.bitmapOf(playedCourseRepository.findCourseIdsByUserId(user.getId()));
 
         // A. Regional Data Calculation
         Map<String, DashboardStats.RegionStat> regionalData = new HashMap<>();
-        Map<String, List<Course>> byCounty = allCourses.stream()
-                .collect(Collectors.groupingBy(c -> c.getCounty() != null ? c.getCounty() : "Unknown"));
 
-        for (var entry : byCounty.entrySet()) {
+        for (var entry : catalog.byCounty().entrySet()) {
             List<CourseDto> regionDtos = entry.getValue().stream()
-                    .map(c -> new CourseDto(c.getId(), c.getName(), c.getLatitude(), c.getLongitude(), c.getExternalId(), playedIds.contains(c.getId())))
+                    .map(e -> e.toDto(played.get(e.index())))
                     .sorted(Comparator.comparing(CourseDto::played).reversed().thenComparing(CourseDto::name))
                     .collect(Collectors.toList());
 
-            long playedCount = entry.getValue().stream().filter(c -> playedIds.contains(c.getId())).count();
+            long playedCount = played.countIn(catalog.countyMasks().get(entry.getKey()));
             regionalData.put(entry.getKey(), new DashboardStats.RegionStat(playedCount, entry.getValue().size(), regionDtos));
         }
 
-        // B. Recent Rounds — the query already returns every round, so the lifetime
-        // count is free here. Do not add a second count query for it.
-        List<Round> allRounds = roundRepository.findByUserIdOrderByDateDescIdDesc(user.getId());
-        List<DashboardStats.RoundSummary> recentRounds = allRounds.stream()
-                .limit(5)
-                .map(r -> new DashboardStats.RoundSummary(r.getId(), r.getCourse().getName(), r.getDate().toString(), r.getScore()))
-                .collect(Collectors.toList());
+        // B. Recent Rounds — only the five shown, off the (user, date, id) index. The lifetime
+        // count comes from user_stats, so neither grows with the number of rounds logged.
+        List<DashboardStats.RoundSummary> recentRounds = roundRepository.findSummariesByUserId(user.getId(), Limit.of(5));
 
         // C. Build Response
         DashboardStats stats = new DashboardStats();
         stats.setDisplayName(user.getFullName());
         stats.setAvatar(user.getAvatar());
         stats.setEmail(user.getEmail());
-        // Count only played courses that are still active: playedIds includes rounds on courses
-        // the club-list reconciler has since deactivated, and counting those against a
-        // active-only denominator produces "34 av 30" and a percentage above 100.
-        int totalPlayed = (int) allCourses.stream().filter(c -> playedIds.contains(c.getId())).count();
+        // Count only played courses that are still active: the played ids include rounds on
+        // courses the club-list reconciler has since deactivated, and counting those against an
+        // active-only denominator produces "34 av 30" and a percentage above 100. The bitmap
+        // drops them when it is built, so its cardinality is the active-only count.
+        int totalPlayed = played.cardinality();
         stats.setTotalPlayed(totalPlayed);
-        stats.setTotalCourses(allCourses.size());
-        stats.setPercentageComplete(allCourses.isEmpty() ? 0 : (double) totalPlayed / allCourses.size() * 100);
+        stats.setTotalCourses(catalog.size());
+        stats.setPercentageComplete(catalog.isEmpty() ? 0 : (double) totalPlayed / catalog.size() * 100);
         stats.setRegionStats(regionalData);
         stats.setRecentRounds(recentRounds);
-        stats.setRoundCount(allRounds.size());
+        stats.setRoundCount(roundCount(user.getId()));
 
         return stats;
     }
 
+    /**
+     * The user's lifetime round count from user_stats. Users from before the table existed have
+     * no row until their first overview or their next logged round; either creates it from one
+     * exact count, and logRound/deleteRound/the import keep it current from then on.
+     */
+    private long roundCount(Long userId) {
+        Optional<UserStats> stats = userStatsRepository.findById(userId);
+        if (stats.isPresent()) return stats.get().getRoundCount();
+
+        userStatsRepository.createIfAbsent(userId);
+        return userStatsRepository.findById(userId).map(UserStats::getRoundCount).orElse(0L);
+    }
+
     // --- 6. Mark Played Manually ---
     public List<CourseDto> markCoursePlayed(Long userId, String externalId) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
         Course course = courseRepository.findByExternalId(externalId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
-        if (!playedCourseRepository.existsByUserIdAndCourseId(userId, course.getId())) {
-            playedCourseRepository.save(new PlayedCourse(user, course));
-        }
+        playedCourseRepository.insertIfAbsent(userId, course.getId());
         return getPlayedCourses(userId);
     }
-}
\ No newline at end of file
+
+    // --- 6b. Mark Many Played ---
+    /** Onboarding ticks off a whole history at once; more than this in one request is not a history. */
+    static final int MARK_PLAYED_MAX = 500;
+
+    /**
+     * Marks many courses played and answers with the delta instead of re-reading the user's whole
+     * played list. On Postgres that is two statements whatever the count: the lookup and the insert.
+     */
+    @Transactional
+    public PlayedCoursesDelta markCoursesPlayed(Long userId, Collection<String> externalIds) {
+        if (externalIds == null || externalIds.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "courseExternalIds is required");
+        }
+        Set<String> wanted = new LinkedHashSet<>(externalIds);
+        wanted.remove(null);
+        if (wanted.size() > MARK_PLAYED_MAX) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MARK_PLAYED_MAX + " courses per request");
+        }
+
+        Map<Long, Course> byId = new LinkedHashMap<>();
+        Set<String> found = new HashSet<>();
+        for (Course c : courseRepository.findByExternalIdIn(wanted)) {
+            byId.put(c.getId(), c);
+            found.add(c.getExternalId());
+        }
+        List<CourseDto> added = playedCourseRepository.insertIfAbsent(userId, byId.keySet()).stream()
+                .map(byId::get)
+                .map(c -> new CourseDto(c.getId(), c.getName(), c.getLatitude(), c.getLongitude(), c.getExternalId(), true))
+                .collect(Collectors.toList());
+        List<String> unknown = wanted.stream().filter(id -> !found.contains(id)).collect(Collectors.toList());
+        return new PlayedCoursesDelta(added, unknown);
+    }
+
+    // --- 7. NEAREST COURSES ---
+    static final int NEARBY_DEFAULT = 10;
+    static final int NEARBY_MAX = 50;
+
+    public List<NearbyCourseDto> getNearbyCourses(User currentUser, double lat, double lon, Integer k, boolean unplayedOnly) {
+        if (!Double.isFinite(lat) || lat < -90 || lat > 90 || !Double.isFinite(lon) || lon < -180 || lon > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "lat must be within ±90 and lon within ±180");
+        }
+        int limit = k != null ? k : NEARBY_DEFAULT;
+        if (limit < 1 || limit > NEARBY_MAX) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "k must be between 1 and " + NEARBY_MAX);
+        }
+
+        CourseCatalog catalog = courseCatalog.current();
+        // Anonymous callers have played nothing, so "unplayed only" is simply everything for them.
+        CourseBitmap played = catalog.bitmapOf(currentUser != null
+                ? playedCourseRepository.findCourseIdsByUserId(currentUser.getId())
+                : List.of());
+
+        return catalog.nearest(lat, lon, limit, e -> !unplayedOnly || !played.get(e.index())).stream()
+                .map(hit -> {
+                    CourseCatalog.Entry e = hit.item();
+                    return new NearbyCourseDto(e.id(), e.name(), e.latitude(), e.longitude(), e.externalId(),
+                            played.get(e.index()), hit.km());
+                })
+                .collect(Collectors.toList());
+    }
+
+    // --- 8. COURSES IN VIEW ---
+    /** Below this zoom the map gets clusters; from it up, every course in view. */
+    static final int CLUSTER_BELOW_ZOOM = 9;
+
+    public CourseViewportDto getCoursesInView(User currentUser, String bbox, Integer zoom) {
+        double[] box = parseBbox(bbox);
+        double west = box[0], south = box[1], east = box[2], north = box[3];
+        int z = zoom != null ? zoom : CourseCatalog.MAX_ZOOM;
+        if (z < 0 || z > CourseCatalog.MAX_ZOOM) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "zoom must be between 0 and " + CourseCatalog.MAX_ZOOM);
+        }
+
+        CourseCatalog catalog = courseCatalog.current();
+        CourseBitmap played = catalog.bitmapOf(currentUser != null
+                ? playedCourseRepository.findCourseIdsByUserId(currentUser.getId())
+                : List.of());
+
+        if (z >= CLUSTER_BELOW_ZOOM) {
+            List<CourseDto> courses = catalog.inBox(south, west, north, east).stream()
+                    .map(e -> e.toDto(played.get(e.index())))
+                    .collect(Collectors.toList());
+            return new CourseViewportDto(z, courses, List.of());
+        }
+
+        List<CourseDto> courses = new ArrayList<>();
+        List<CourseClusterDto> clusters = new ArrayList<>();
+        for (CourseCatalog.Cluster c : catalog.clusters(z)) {
+            if (c.latitude() < south || c.latitude() > north || c.longitude() < west || c.longitude() > east) continue;
+            if (c.count() == 1) {
+                courses.add(c.first().toDto(played.get(c.first().index())));
+            } else {
+                clusters.add(new CourseClusterDto(c.latitude(), c.longitude(), c.count(), played.countIn(c.members())));
+            }
+        }
+        return new CourseViewportDto(z, courses, clusters);
+    }
+
+    /** "west,south,east,north" in degrees, the order map libraries hand out. */
+    private static double[] parseBbox(String bbox) {
+        String[] parts = bbox == null ? new String[0] : bbox.split(",");
+        double[] box = new double[4];
+        boolean valid = parts.length == 4;
+        for (int i = 0; valid && i < 4; i++) {
+            try {
+                box[i] = Double.parseDouble(parts[i].trim());
+                valid = Double.isFinite(box[i]);
+            } catch (NumberFormatException e) {
+                valid = false;
+            }
+        }
+        valid = valid && box[0] >= -180 && box[2] <= 180 && box[0] <= box[2]
+                && box[1] >= -90 && box[3] <= 90 && box[1] <= box[3];
+        if (!valid) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bbox must be west,south,east,north in degrees");
+        }
+        return box;
+    }
+
+    // --- 9. PLAYED OVERLAY ---
+    /**
+     * The caller's played courses as bare ids, for a client that fetched the shared catalog body
+     * and only needs to know which of its entries to mark. Deactivated courses are left out,
+     * like in the catalog itself.
+     */
+    public List<Long> getPlayedCourseIds(User user) {
+        CourseCatalog catalog = courseCatalog.current();
+        return playedCourseRepository.findCourseIdsByUserId(user.getId()).stream()
+                .filter(catalog::contains)
+                .collect(Collectors.toList());
+    }
+
+    // --- 10. CATALOG CHANGES ---
+    /** Past this many logged changes the full list is sent instead: a delta that big saves nothing. */
+    static final int MAX_DELTA_CHANGES = 500;
+
+    public CourseChangesDto getCourseChanges(User currentUser, Long since) {
+        CourseCatalog catalog = courseCatalog.current();
+        // The snapshot's own change version, not the log's newest: a sync that committed a moment
+        // ago may not be in this snapshot yet, and claiming its version would skip it for good.
+        long upTo = catalog.changeVersion();
+        CourseBitmap played = catalog.bitmapOf(currentUser != null
+                ? playedCourseRepository.findCourseIdsByUserId(currentUser.getId())
+                : List.of());
+
+        // No version, one from a different database, or too far behind: start over.
+        if (since == null || since <= 0 || since > upTo
+                || courseChangeRepository.countBetween(since, upTo) > MAX_DELTA_CHANGES) {
+            List<CourseDto> all = catalog.entries().stream()
+                    .map(e -> e.toDto(played.get(e.index())))
+                    .collect(Collectors.toList());
+            return new CourseChangesDto(upTo, true, all, List.of());
+        }
+
+        // The log says which courses changed; the snapshot says what they look like now. A course
+        // inserted and deactivated since the client's version simply comes back as removed.
+        List<Long> changedIds = new ArrayList<>(courseChangeRepository.findCourseIdsBetween(since, upTo));
+        Collections.sort(changedIds);
+        List<CourseDto> changed = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        for (Long id : changedIds) {
+            int index = catalog.indexOf(id);
+            if (index >= 0) {
+                changed.add(catalog.get(index).toDto(played.get(index)));
+            } else {
+                removed.add(id);
+            }
+        }
+        return new CourseChangesDto(upTo, false, changed, removed);
+    }
+}
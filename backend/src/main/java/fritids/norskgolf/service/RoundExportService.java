@@ -0,0 +1,88 @@
+package fritids.norskgolf.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fritids.norskgolf.dto.RoundDto;
+import fritids.norskgolf.entities.User;
+import fritids.norskgolf.repository.RoundRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Writes a user's whole round history straight from a database cursor to the response. Nothing is
+ * collected on the way: each row is formatted and written before the next is read, so the heap
+ * cost is the same for ten rounds as for ten thousand.
+ */
+@Service
+public class RoundExportService {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        public final String contentType;
+        public final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) return CSV;
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be csv or ndjson");
+            }
+        }
+    }
+
+    @Autowired private RoundRepository roundRepository;
+    @Autowired private ObjectMapper objectMapper;
+
+    /**
+     * Runs on the thread that writes the response, after the controller has returned, so the
+     * transaction holding the cursor open is this method's own.
+     */
+    @Transactional(readOnly = true)
+    public void export(User user, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<RoundDto> rounds = roundRepository.streamDtosByUserId(user.getId())) {
+            if (format == Format.CSV) writer.write("id,date,courseId,courseName,score\n");
+            Iterator<RoundDto> it = rounds.iterator();
+            while (it.hasNext()) {
+                RoundDto r = it.next();
+                if (format == Format.CSV) {
+                    writer.write(r.getId() + "," + r.getDate() + "," + r.getCourseId() + ","
+                            + csvField(r.getCourseName()) + "," + r.getScore() + "\n");
+                } else {
+                    writer.write(objectMapper.writeValueAsString(r));
+                    writer.write('\n');
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    // RFC 4180: quote a field holding a comma, quote or line break, doubling any quotes inside.
+    static String csvField(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
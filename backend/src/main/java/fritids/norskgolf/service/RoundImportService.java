@@ -0,0 +1,357 @@
+package fritids.norskgolf.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fritids.norskgolf.dto.RoundImportResult;
+import fritids.norskgolf.entities.Round;
+import fritids.norskgolf.entities.User;
+import fritids.norskgolf.repository.CourseRepository;
+import fritids.norskgolf.repository.PlayedCourseRepository;
+import fritids.norskgolf.repository.RoundRepository;
+import fritids.norskgolf.repository.UserStatsRepository;
+import fritids.norskgolf.service.catalog.CourseCatalog;
+import fritids.norskgolf.service.catalog.CourseCatalogProvider;
+import fritids.norskgolf.service.clubs.ClubMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Bulk import of a user's old scores, from a CSV sheet or JSON. The upload is read one row at a
+ * time; valid rows are written in chunks of {@link #CHUNK_SIZE}, each in its own transaction, so
+ * neither the upload nor the persistence context grows with the file. A failing row is reported
+ * and skipped rather than failing the whole import. Chunks already committed stay committed.
+ */
+@Service
+public class RoundImportService {
+
+    static final int CHUNK_SIZE = 500;
+    static final int MAX_ROWS = 20_000;
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    public enum Format {
+        CSV, JSON;
+
+        /** text/csv is CSV; application/json (an array) and application/x-ndjson are both JSON. */
+        public static Format of(MediaType contentType) {
+            return contentType != null && contentType.isCompatibleWith(MediaType.parseMediaType("text/csv")) ? CSV : JSON;
+        }
+    }
+
+    @Autowired private RoundRepository roundRepository;
+    @Autowired private PlayedCourseRepository playedCourseRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private UserStatsRepository userStatsRepository;
+    @Autowired private CourseCatalogProvider courseCatalog;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ObjectMapper objectMapper;
+
+    /** One uploaded row, every field as text so a malformed value is a row error, not a parse failure. */
+    private record ImportRow(int row, String courseId, String courseExternalId, String courseName,
+                             String date, String score) {}
+
+    private record PendingRound(Long courseId, LocalDate date, int score) {}
+
+    private interface RowSource {
+        /** The next row, or null at the end of the upload. */
+        ImportRow next() throws IOException;
+
+        /** Where reading stopped, in the same numbering as {@link ImportRow#row()}. */
+        int position();
+    }
+
+    public RoundImportResult importRounds(User user, Format format, Charset charset, InputStream in) {
+        CourseLookup courses = new CourseLookup(courseCatalog.current());
+        Set<Long> played = new HashSet<>(playedCourseRepository.findCourseIdsByUserId(user.getId()));
+        List<RoundImportResult.RowError> errors = new ArrayList<>();
+        List<PendingRound> chunk = new ArrayList<>(CHUNK_SIZE);
+        int imported = 0, failed = 0, rows = 0;
+
+        RowSource source = null;
+        try {
+            source = format == Format.CSV
+                    ? new CsvRows(new BufferedReader(new InputStreamReader(in, charset != null ? charset : StandardCharsets.UTF_8)))
+                    : new JsonRows(objectMapper, objectMapper.getFactory().createParser(in));
+            for (ImportRow row; (row = source.next()) != null; ) {
+                if (++rows > MAX_ROWS) {
+                    failed++;
+                    addError(errors, row.row(), "An import is limited to " + MAX_ROWS + " rows; the rest was not read");
+                    break;
+                }
+                try {
+                    int score = parseScore(row.score());
+                    LocalDate date = GolfService.validateRound(score, row.date());
+                    chunk.add(new PendingRound(courses.resolve(row), date, score));
+                } catch (ResponseStatusException e) {
+                    failed++;
+                    addError(errors, row.row(), e.getReason());
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    imported += write(user, chunk, played);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            // A broken file rather than a bad row: keep what came before it and say where it broke.
+            failed++;
+            addError(errors, source != null ? source.position() : 1, "Could not read the upload past this point: " + e.getMessage());
+        }
+        imported += write(user, chunk, played);
+        return new RoundImportResult(imported, failed, errors);
+    }
+
+    private static void addError(List<RoundImportResult.RowError> errors, int row, String message) {
+        if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new RoundImportResult.RowError(row, message));
+    }
+
+    private static int parseScore(String score) {
+        try {
+            return Integer.parseInt(score == null ? "" : score.trim());
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Score must be a whole number");
+        }
+    }
+
+    /**
+     * One chunk in one transaction: the rounds (batched by Hibernate, the ids come from a sequence),
+     * a played_course row for each course the user hadn't played yet (insert-if-absent, so a
+     * mark-played racing the import can't collide with it), and the user_stats count.
+     * Courses are attached by reference, so none of them is selected.
+     */
+    private int write(User user, List<PendingRound> chunk, Set<Long> played) {
+        if (chunk.isEmpty()) return 0;
+        Set<Long> newlyPlayed = new LinkedHashSet<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            // Before the rounds are saved, so a freshly seeded row doesn't count this chunk twice.
+            userStatsRepository.createIfAbsent(user.getId());
+            List<Round> rounds = new ArrayList<>(chunk.size());
+            for (PendingRound pending : chunk) {
+                Round round = new Round();
+                round.setUser(user);
+                round.setCourse(courseRepository.getReferenceById(pending.courseId()));
+                round.setDate(pending.date());
+                round.setScore(pending.score());
+                rounds.add(round);
+                if (!played.contains(pending.courseId())) newlyPlayed.add(pending.courseId());
+            }
+            roundRepository.saveAll(rounds);
+            playedCourseRepository.insertIfAbsent(user.getId(), newlyPlayed);
+            userStatsRepository.addRounds(user.getId(), rounds.size());
+        });
+        played.addAll(newlyPlayed);
+        return chunk.size();
+    }
+
+    /**
+     * Maps an uploaded row to an active course: by id, then externalId, then name. Names are
+     * compared the way the club reconciler compares them, so "Oslo GK" finds "Oslo Golfklubb".
+     * Built once per import from the catalog snapshot, so resolving a row costs no query.
+     */
+    private static final class CourseLookup {
+        private static final Long AMBIGUOUS = -1L;
+
+        private final CourseCatalog catalog;
+        private final Map<String, Long> byExternalId = new HashMap<>();
+        private final Map<String, Long> byName = new HashMap<>();
+
+        CourseLookup(CourseCatalog catalog) {
+            this.catalog = catalog;
+            for (CourseCatalog.Entry e : catalog.entries()) {
+                if (e.externalId() != null) byExternalId.put(e.externalId(), e.id());
+                byName.merge(ClubMatcher.normalise(e.name()), e.id(), (a, b) -> AMBIGUOUS);
+            }
+        }
+
+        Long resolve(ImportRow row) {
+            if (!isBlank(row.courseId())) {
+                Long id;
+                try {
+                    id = Long.parseLong(row.courseId().trim());
+                } catch (NumberFormatException e) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "courseId must be a number");
+                }
+                if (!catalog.contains(id)) throw notFound("id " + id);
+                return id;
+            }
+            if (!isBlank(row.courseExternalId())) {
+                Long id = byExternalId.get(row.courseExternalId().trim());
+                if (id == null) throw notFound("\"" + row.courseExternalId().trim() + "\"");
+                return id;
+            }
+            if (!isBlank(row.courseName())) {
+                Long id = byName.get(ClubMatcher.normalise(row.courseName()));
+                if (id == null) throw notFound("\"" + row.courseName().trim() + "\"");
+                if (AMBIGUOUS.equals(id)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "More than one course is called \"" + row.courseName().trim() + "\"; use courseExternalId");
+                }
+                return id;
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "courseId, courseExternalId or courseName is required");
+        }
+
+        private static ResponseStatusException notFound(String what) {
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, "No active course " + what);
+        }
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    /**
+     * RFC 4180 records with a header naming the columns, in any order and any case. Spreadsheets
+     * in a Norwegian locale save with semicolons, so a header with no comma but a semicolon
+     * switches the delimiter. Extra columns, like the export's id, are ignored.
+     */
+    private static final class CsvRows implements RowSource {
+        private final BufferedReader reader;
+        private char delimiter = ',';
+        private int line = 1;
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        CsvRows(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = readRecord();
+            if (header == null) header = List.of();
+            if (header.size() == 1 && header.get(0).contains(";")) {
+                delimiter = ';';
+                header = Arrays.asList(header.get(0).split(";", -1));
+            }
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+                columns.putIfAbsent(name, i);
+            }
+            if (!columns.containsKey("date") || !columns.containsKey("score")) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "The first line must name the columns: date, score and courseId, courseExternalId or courseName");
+            }
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            List<String> fields;
+            int row;
+            do {
+                row = line;
+                fields = readRecord();
+                if (fields == null) return null;
+            } while (fields.size() == 1 && fields.get(0).isBlank()); // blank lines, e.g. at the end
+            return new ImportRow(row, get(fields, "courseid"), get(fields, "courseexternalid"),
+                    get(fields, "coursename"), get(fields, "date"), get(fields, "score"));
+        }
+
+        @Override
+        public int position() {
+            return line;
+        }
+
+        private String get(List<String> fields, String column) {
+            Integer i = columns.get(column);
+            return i != null && i < fields.size() ? fields.get(i) : null;
+        }
+
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false, any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) reader.reset();
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == delimiter) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    line++;
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!any) return null;
+            if (quoted) throw new IOException("unterminated quoted field starting on line " + line);
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    /**
+     * Either a JSON array of round objects or one object after another (NDJSON, as the export
+     * writes it). Each object is read into a small tree on its own, never the whole upload.
+     */
+    private static final class JsonRows implements RowSource {
+        private final ObjectMapper mapper;
+        private final JsonParser parser;
+        private final boolean array;
+        // In NDJSON the first object's START_OBJECT was already read to tell the two apart.
+        private JsonToken pending;
+        private int item;
+
+        JsonRows(ObjectMapper mapper, JsonParser parser) throws IOException {
+            this.mapper = mapper;
+            this.parser = parser;
+            JsonToken first = parser.nextToken();
+            this.array = first == JsonToken.START_ARRAY;
+            this.pending = array ? null : first;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            try {
+                JsonToken token = pending != null ? pending : parser.nextToken();
+                pending = null;
+                if (token == null || (array && token == JsonToken.END_ARRAY)) return null;
+                item++;
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("expected a round object at line " + parser.currentTokenLocation().getLineNr());
+                }
+                JsonNode node = mapper.readTree(parser);
+                return new ImportRow(item, text(node, "courseId"), text(node, "courseExternalId"),
+                        text(node, "courseName"), text(node, "date"), text(node, "score"));
+            } catch (JsonProcessingException e) {
+                throw new IOException(e.getOriginalMessage() + " at line " + e.getLocation().getLineNr(), e);
+            }
+        }
+
+        @Override
+        public int position() {
+            return Math.max(item, 1);
+        }
+
+        private static String text(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+}
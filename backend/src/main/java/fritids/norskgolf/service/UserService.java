@@ -6,8 +6,15 @@ import fritids.norskgolf.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class UserService {
@@ -15,6 +22,13 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    // Since startup, on this instance: logins that saved the user, and logins that found nothing to save.
+    private final AtomicLong loginWrites = new AtomicLong();
+    private final AtomicLong loginWritesAvoided = new AtomicLong();
+
+    public long loginWrites() { return loginWrites.get(); }
+    public long loginWritesAvoided() { return loginWritesAvoided.get(); }
+
     /**
      * Extracts Google data -> Saves to Database -> Returns DTO
      */
@@ -44,14 +58,27 @@ public class UserService {
             }
         }
 
-        // Always update these (Syncs Google changes)
-        user.setEmail(email);
-        user.setFirstName(firstName);
-        user.setLastName(lastName);
-        user.setAvatar(photo);
-
-        // 4. Save to Database
-        userRepository.save(user);
+        // Always sync these from Google — but only write when Google actually changed one. Most
+        // logins return exactly what is stored, and each of those used to cost a row update.
+        boolean changed = user.getId() == null
+                || !Objects.equals(user.getEmail(), email)
+                || !Objects.equals(user.getFirstName(), firstName)
+                || !Objects.equals(user.getLastName(), lastName)
+                || !Objects.equals(user.getAvatar(), photo);
+
+        // 4. Save to Database. The email or username a principal resolved by may have just
+        // changed, so drop what resolveUser cached for this user.
+        if (changed) {
+            user.setEmail(email);
+            user.setFirstName(firstName);
+            user.setLastName(lastName);
+            user.setAvatar(photo);
+            userRepository.save(user);
+            evict(user);
+            loginWrites.incrementAndGet();
+        } else {
+            loginWritesAvoided.incrementAndGet();
+        }
 
         // 5. Build DTO
         UserProfileDTO dto = new UserProfileDTO();
@@ -67,11 +94,60 @@ public class UserService {
         return dto;
     }
 
+    /** Principal names seen recently, mapped to the user id they resolved to. */
+    static final int MAX_CACHED_PRINCIPALS = 10_000;
+    private static final String REQUEST_MEMO = UserService.class.getName() + ".resolved:";
+
+    // Access-ordered, so the bound evicts whoever logged in longest ago. Only ids are kept: the
+    // User itself is read fresh by primary key, so a name or avatar change made on another
+    // instance is never served stale from here.
+    private final Map<String, Long> userIdByPrincipal = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > MAX_CACHED_PRINCIPALS;
+                }
+            });
+
+    /**
+     * The User behind the principal. The first request for a principal may take up to three
+     * lookups (username, then providerId, then email); after that it is one find by id, and a
+     * second call within the same request is free.
+     */
     public User resolveUser(java.security.Principal principal) {
         String name = principal.getName();
-        return userRepository.findByUsername(name)
-                .or(() -> userRepository.findByProviderId(name))
-                .or(() -> userRepository.findByEmail(name))
-                .orElse(null);
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && request.getAttribute(REQUEST_MEMO + name, RequestAttributes.SCOPE_REQUEST) instanceof User memo) {
+            return memo;
+        }
+
+        Long cachedId = userIdByPrincipal.get(name);
+        User user = cachedId != null ? userRepository.findById(cachedId).orElse(null) : null;
+        if (user == null) {
+            // Not cached yet, or the user behind the cached id is gone.
+            user = userRepository.findByUsername(name)
+                    .or(() -> userRepository.findByProviderId(name))
+                    .or(() -> userRepository.findByEmail(name))
+                    .orElse(null);
+            if (user != null) userIdByPrincipal.put(name, user.getId());
+            else userIdByPrincipal.remove(name);
+        }
+
+        if (user != null && request != null) {
+            request.setAttribute(REQUEST_MEMO + name, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    /** Forgets every principal that resolved to this user, so the next request looks it up afresh. */
+    private void evict(User user) {
+        if (user.getId() == null) return;
+        userIdByPrincipal.values().removeIf(user.getId()::equals);
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            for (String attribute : request.getAttributeNames(RequestAttributes.SCOPE_REQUEST)) {
+                if (attribute.startsWith(REQUEST_MEMO)) request.removeAttribute(attribute, RequestAttributes.SCOPE_REQUEST);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package fritids.norskgolf.service.catalog;
+
+/**
+ * A set of courses as bits over a {@link CourseCatalog}'s dense index. Only the catalog builds
+ * one, so a bitmap can never hold a course the snapshot doesn't know — which is exactly the
+ * active-only rule the Overview and leaderboard counts need. Combine bitmaps only with others
+ * from the same snapshot: indexes are meaningless across versions.
+ */
+public final class CourseBitmap {
+
+    private final long[] words;
+
+    CourseBitmap(int size) {
+        this.words = new long[(size + 63) >>> 6];
+    }
+
+    void set(int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    public boolean get(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) count += Long.bitCount(word);
+        return count;
+    }
+
+    /** How many of {@code mask}'s courses are also in this set. */
+    public int countIn(CourseBitmap mask) {
+        int count = 0;
+        for (int i = 0; i < words.length; i++) count += Long.bitCount(words[i] & mask.words[i]);
+        return count;
+    }
+
+    /** True if every course in {@code mask} is also in this set. */
+    public boolean containsAll(CourseBitmap mask) {
+        for (int i = 0; i < words.length; i++) {
+            if ((mask.words[i] & ~words[i]) != 0) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,188 @@
+package fritids.norskgolf.service.catalog;
+
+import fritids.norskgolf.dto.CourseDto;
+import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.service.geo.GeoGrid;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * An immutable snapshot of the active courses. Every course gets a dense index (0..size-1) in the
+ * order findByActiveTrue returned it, so callers can keep per-course state in arrays instead of
+ * maps keyed by boxed ids. A new snapshot, with a higher version, replaces this one whenever the
+ * club reconciler commits; nothing ever mutates one in place.
+ */
+public final class CourseCatalog {
+
+    /** Null counties bucket under this name, on the Overview and the leaderboard alike. */
+    public static final String UNKNOWN_COUNTY = "Unknown";
+
+    /** Grid cell for the nearby index: about the spacing of courses around the cities. */
+    private static final double NEARBY_CELL_KM = 10.0;
+
+    /**
+     * Courses sharing one on-screen cell at some zoom. {@code members} marks them in catalog
+     * order, so a caller's played count for the cluster is one bitmap intersection.
+     */
+    public record Cluster(double latitude, double longitude, int count, CourseBitmap members, Entry first) {}
+
+    /** Cluster cells are about this many pixels wide on a 256-pixel-tile web map. */
+    private static final int CLUSTER_CELL_PX = 64;
+    /** Highest zoom a cluster cell can be computed for; anything above is closer than street level. */
+    public static final int MAX_ZOOM = 22;
+
+    public record Entry(int index, Long id, String name, Double latitude, Double longitude,
+                        String externalId, String county) {
+
+        public CourseDto toDto(boolean played) {
+            return new CourseDto(id, name, latitude, longitude, externalId, played);
+        }
+    }
+
+    private final long version;
+    private final long changeVersion;
+    private final List<Entry> entries;
+    private final Map<Long, Integer> indexById;
+    private final Map<String, List<Entry>> byCounty;
+    private final Map<String, CourseBitmap> countyMasks;
+    // Filled once here and only read afterwards, so sharing it across request threads is safe.
+    private final GeoGrid<Entry> grid;
+    // Clusters depend only on this snapshot and the zoom, so each zoom is computed once per
+    // catalog version, on first request, and dropped with the snapshot when the catalog changes.
+    private final Map<Integer, List<Cluster>> clustersByZoom = new ConcurrentHashMap<>();
+
+    private CourseCatalog(long version, long changeVersion, List<Entry> entries) {
+        this.version = version;
+        this.changeVersion = changeVersion;
+        this.entries = Collections.unmodifiableList(entries);
+
+        Map<Long, Integer> ids = new HashMap<>();
+        Map<String, List<Entry>> counties = new LinkedHashMap<>();
+        for (Entry e : entries) {
+            ids.put(e.id(), e.index());
+            counties.computeIfAbsent(e.county(), k -> new ArrayList<>()).add(e);
+        }
+        Map<String, CourseBitmap> masks = new LinkedHashMap<>();
+        counties.forEach((county, list) -> {
+            CourseBitmap mask = new CourseBitmap(entries.size());
+            list.forEach(e -> mask.set(e.index()));
+            masks.put(county, mask);
+        });
+        counties.replaceAll((county, list) -> Collections.unmodifiableList(list));
+        this.indexById = Collections.unmodifiableMap(ids);
+        this.byCounty = Collections.unmodifiableMap(counties);
+        this.countyMasks = Collections.unmodifiableMap(masks);
+        this.grid = GeoGrid.of(entries, Entry::latitude, Entry::longitude, NEARBY_CELL_KM);
+    }
+
+    /** Builds a snapshot from active courses. Inactive ones are the caller's mistake, not filtered here. */
+    public static CourseCatalog of(long version, List<Course> activeCourses) {
+        return of(version, 0, activeCourses);
+    }
+
+    /**
+     * As {@link #of(long, List)}, for courses read after the change log stood at {@code changeVersion}:
+     * the snapshot reflects every change up to it.
+     */
+    public static CourseCatalog of(long version, long changeVersion, List<Course> activeCourses) {
+        List<Entry> entries = new ArrayList<>(activeCourses.size());
+        for (Course c : activeCourses) {
+            entries.add(new Entry(entries.size(), c.getId(), c.getName(), c.getLatitude(), c.getLongitude(),
+                    c.getExternalId(), c.getCounty() != null ? c.getCounty() : UNKNOWN_COUNTY));
+        }
+        return new CourseCatalog(version, changeVersion, entries);
+    }
+
+    public long version() { return version; }
+
+    /** The newest course_change id this snapshot is known to include. */
+    public long changeVersion() { return changeVersion; }
+
+    public int size() { return entries.size(); }
+
+    public boolean isEmpty() { return entries.isEmpty(); }
+
+    public List<Entry> entries() { return entries; }
+
+    public Entry get(int index) { return entries.get(index); }
+
+    /** The dense index of an active course, or -1 for an unknown or deactivated one. */
+    public int indexOf(Long courseId) {
+        Integer index = indexById.get(courseId);
+        return index != null ? index : -1;
+    }
+
+    public boolean contains(Long courseId) { return indexById.containsKey(courseId); }
+
+    /** Active courses grouped by county, in first-seen order. */
+    public Map<String, List<Entry>> byCounty() { return byCounty; }
+
+    /** One bitmap per county, same keys and order as {@link #byCounty()}. */
+    public Map<String, CourseBitmap> countyMasks() { return countyMasks; }
+
+    /** The {@code k} placed courses closest to the point that pass {@code filter}, nearest first. */
+    public List<GeoGrid.Hit<Entry>> nearest(double lat, double lon, int k, Predicate<Entry> filter) {
+        return grid.nearest(lat, lon, k, filter);
+    }
+
+    /** Placed courses inside the box, edges included, in catalog order. {@code west <= east}. */
+    public List<Entry> inBox(double south, double west, double north, double east) {
+        return grid.inBox(south, west, north, east);
+    }
+
+    /**
+     * Placed courses grouped into square screen cells for the given zoom (0..{@link #MAX_ZOOM}),
+     * in order of each cluster's first course. The position is the members' average.
+     */
+    public List<Cluster> clusters(int zoom) {
+        if (zoom < 0 || zoom > MAX_ZOOM) throw new IllegalArgumentException("zoom out of range: " + zoom);
+        return clustersByZoom.computeIfAbsent(zoom, this::buildClusters);
+    }
+
+    private List<Cluster> buildClusters(int zoom) {
+        // Cells are square in web-mercator units, i.e. on screen, rather than in degrees: in
+        // degrees they would be twice as tall as wide this far north.
+        double cellDeg = CLUSTER_CELL_PX * 360.0 / (256 * Math.pow(2, zoom));
+        Map<Long, List<Entry>> cells = new LinkedHashMap<>();
+        for (Entry e : entries) {
+            if (e.latitude() == null || e.longitude() == null) continue;
+            long row = (long) Math.floor(mercatorY(e.latitude()) / cellDeg);
+            long col = (long) Math.floor(e.longitude() / cellDeg);
+            cells.computeIfAbsent((row << 32) ^ (col & 0xffffffffL), k -> new ArrayList<>()).add(e);
+        }
+        List<Cluster> clusters = new ArrayList<>(cells.size());
+        for (List<Entry> members : cells.values()) {
+            CourseBitmap mask = new CourseBitmap(entries.size());
+            double lat = 0, lon = 0;
+            for (Entry e : members) {
+                mask.set(e.index());
+                lat += e.latitude();
+                lon += e.longitude();
+            }
+            clusters.add(new Cluster(lat / members.size(), lon / members.size(), members.size(), mask, members.get(0)));
+        }
+        return Collections.unmodifiableList(clusters);
+    }
+
+    private static double mercatorY(double lat) {
+        double clamped = Math.max(-85.0511, Math.min(85.0511, lat));
+        return Math.toDegrees(Math.log(Math.tan(Math.PI / 4 + Math.toRadians(clamped) / 2)));
+    }
+
+    /** The given courses as a bitmap. Ids this snapshot doesn't know — deactivated courses — are dropped. */
+    public CourseBitmap bitmapOf(Iterable<Long> courseIds) {
+        CourseBitmap bitmap = new CourseBitmap(entries.size());
+        for (Long id : courseIds) {
+            Integer index = indexById.get(id);
+            if (index != null) bitmap.set(index);
+        }
+        return bitmap;
+    }
+}
@@ -0,0 +1,79 @@
+package fritids.norskgolf.service.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The catalog as the JSON body of GET /api/courses with nothing played — what every anonymous
+ * caller gets — serialised and gzipped once per catalog version instead of on every request.
+ */
+@Component
+public class CourseCatalogBody {
+
+    /**
+     * One serialised snapshot. The ETag is a hash of the JSON, not the catalog version, so it
+     * survives a restart and agrees across instances for as long as the courses do. The gzip
+     * bytes are a different representation and so carry a different strong ETag.
+     */
+    public record Body(long version, String etag, byte[] json, byte[] gzip) {
+        public String gzipEtag() {
+            return etag + "-gz";
+        }
+    }
+
+    private final CourseCatalogProvider courseCatalog;
+    private final ObjectMapper objectMapper;
+
+    private volatile Body current;
+
+    public CourseCatalogBody(CourseCatalogProvider courseCatalog, ObjectMapper objectMapper) {
+        this.courseCatalog = courseCatalog;
+        this.objectMapper = objectMapper;
+    }
+
+    public Body current() {
+        CourseCatalog catalog = courseCatalog.current();
+        Body body = current;
+        if (body != null && body.version() == catalog.version()) return body;
+        synchronized (this) {
+            if (current == null || current.version() != catalog.version()) {
+                current = serialise(catalog);
+            }
+            return current;
+        }
+    }
+
+    private Body serialise(CourseCatalog catalog) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(
+                    catalog.entries().stream().map(e -> e.toDto(false)).toList());
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            String etag = HexFormat.of().formatHex(Arrays.copyOf(hash, 16));
+            return new Body(catalog.version(), etag, json, gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("could not serialise the course catalog", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);  // every JVM ships SHA-256
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // in-memory streams don't fail
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,69 @@
+package fritids.norskgolf.service.catalog;
+
+import fritids.norskgolf.repository.CourseChangeRepository;
+import fritids.norskgolf.repository.CourseRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the current {@link CourseCatalog}. The active-course list only changes when
+ * CourseSyncService reconciles the club list, so the map, the Overview and the leaderboard all
+ * read one shared snapshot instead of re-running findByActiveTrue on every request.
+ */
+@Component
+public class CourseCatalogProvider {
+
+    private final CourseRepository courseRepository;
+    private final CourseChangeRepository courseChangeRepository;
+    private final AtomicLong versions = new AtomicLong();
+
+    // null means "stale": the next reader loads a fresh snapshot. Readers never see a half-built
+    // one — a snapshot is fully constructed before it is published here.
+    private volatile CourseCatalog current;
+
+    public CourseCatalogProvider(CourseRepository courseRepository, CourseChangeRepository courseChangeRepository) {
+        this.courseRepository = courseRepository;
+        this.courseChangeRepository = courseChangeRepository;
+    }
+
+    public CourseCatalog current() {
+        CourseCatalog snapshot = current;
+        if (snapshot != null) return snapshot;
+        synchronized (this) {
+            if (current == null) {
+                // Change version first, courses second: a sync committing in between then only
+                // makes the courses newer than the version claims, never older, so a client
+                // catching up from that version sees those changes again rather than missing them.
+                long changeVersion = courseChangeRepository.findLatestVersion();
+                current = CourseCatalog.of(versions.incrementAndGet(), changeVersion, courseRepository.findByActiveTrue());
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Drops the snapshot once the surrounding transaction commits, or immediately outside one.
+     * Dropping it earlier would let a concurrent reader reload the old rows and cache them as new.
+     */
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    public void invalidate() {
+        synchronized (this) {
+            current = null;
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package fritids.norskgolf.service.clubs;
 
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 @Component
 public class ClubListLoader {
@@ -15,28 +23,73 @@ public class ClubListLoader {
     private final ObjectMapper mapper = new ObjectMapper();
 
     public List<ClubRecord> load(String classpathResource) {
-        List<ClubRecord> clubs;
-        try (InputStream in = new ClassPathResource(classpathResource).getInputStream()) {
-            clubs = mapper.readValue(in, mapper.getTypeFactory()
-                    .constructCollectionType(List.class, ClubRecord.class));
-        } catch (Exception e) {
-            throw new IllegalStateException("could not read club list " + classpathResource, e);
-        }
+        List<ClubRecord> clubs = new ArrayList<>();
+        forEach(classpathResource, clubs::add);
+        return clubs;
+    }
 
-        // Validation lives outside the try on purpose: inside it, the blanket catch would rewrap
-        // "duplicate clubId" as "could not read club list" and hide which of the two went wrong.
+    /**
+     * Reads the list one entry at a time, validating each before handing it on, so neither the
+     * file nor a tree of it is ever held in memory. What does grow with the input is the set of
+     * clubIds seen so far: the duplicate check stays exact, since a missed duplicate would rewrite
+     * another club's row, and an id is a few dozen bytes against a whole record. Memory is only
+     * that flat for consumers of this method, though — {@link #load} and the reconcile behind it
+     * need every record at once anyway. Entries before a bad one have already been handed to
+     * {@code sink}.
+     */
+    public void forEach(String classpathResource, Consumer<ClubRecord> sink) {
         Set<String> seen = new HashSet<>();
-        for (ClubRecord club : clubs) {
-            if (club.clubId() == null || club.clubId().isBlank()
-                    || club.name() == null || club.name().isBlank()) {
-                throw new IllegalStateException("club entry missing clubId or name: " + club);
+        try (InputStream in = new ClassPathResource(classpathResource).getInputStream();
+             JsonParser parser = mapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("expected a JSON array " + where(parser.currentTokenLocation()));
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                JsonLocation at = parser.currentTokenLocation();
+                ClubRecord club = mapper.readValue(parser, ClubRecord.class);
+                validate(club, seen, at);
+                sink.accept(club);
             }
-            if (!seen.add(club.clubId())) {
-                // A duplicate slug either collides on the unique externalId or silently rewrites
-                // another club's row, so it must fail loudly rather than reach the reconciler.
-                throw new IllegalStateException("duplicate clubId in club list: " + club.clubId());
+            if (token != JsonToken.END_ARRAY) {
+                throw new IOException("expected a club entry " + where(parser.currentTokenLocation()));
             }
+        } catch (IOException e) {
+            // Only read and parse failures land here. Validation throws IllegalStateException
+            // and passes straight through, so "duplicate clubId" is never rewrapped as
+            // "could not read club list" and the message still says which of the two went wrong.
+            throw new IllegalStateException("could not read club list " + classpathResource + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void validate(ClubRecord club, Set<String> seen, JsonLocation at) {
+        if (club.clubId() == null || club.clubId().isBlank()
+                || club.name() == null || club.name().isBlank()) {
+            throw new IllegalStateException("club entry missing clubId or name " + where(at) + ": " + club);
+        }
+        if (!seen.add(club.clubId())) {
+            // A duplicate slug either collides on the unique externalId or silently rewrites
+            // another club's row, so it must fail loudly rather than reach the reconciler.
+            throw new IllegalStateException("duplicate clubId in club list: " + club.clubId() + " " + where(at));
+        }
+    }
+
+    private static String where(JsonLocation at) {
+        return String.format("at line %d, column %d (byte %d)", at.getLineNr(), at.getColumnNr(), at.getByteOffset());
+    }
+
+    /**
+     * SHA-256 of the raw file, hex. Hashes the bytes rather than the parsed clubs, so it costs
+     * one read of the file and no parsing — cheap enough to run on every boot.
+     */
+    public String contentHash(String classpathResource) {
+        try (InputStream in = new ClassPathResource(classpathResource).getInputStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) != -1; ) digest.update(buffer, 0, n);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (Exception e) {
+            throw new IllegalStateException("could not read club list " + classpathResource, e);
         }
-        return clubs;
     }
 }
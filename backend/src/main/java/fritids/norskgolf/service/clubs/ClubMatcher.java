@@ -1,11 +1,15 @@
 package fritids.norskgolf.service.clubs;
 
 import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.service.geo.GeoGrid;
 import org.springframework.stereotype.Component;
 
 import java.text.Normalizer;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 @Component
 public class ClubMatcher {
@@ -15,45 +19,159 @@ public class ClubMatcher {
 
     public record Match(Course course, boolean ambiguous) {}
 
+    /**
+     * The courses a reconcile run may still claim, indexed by position so each club only
+     * measures the handful of courses in its own neighbourhood. Remove a course once it is
+     * claimed; it then stops showing up as a candidate for later clubs.
+     */
+    public static final class Candidates {
+        private final GeoGrid<Course> grid;
+        // A course near several clubs is compared once per club; normalise its name only once.
+        private final Map<Course, String> normalisedNames = new IdentityHashMap<>();
+
+        private Candidates(GeoGrid<Course> grid) {
+            this.grid = grid;
+        }
+
+        public static Candidates of(List<Course> courses) {
+            return new Candidates(GeoGrid.of(courses, Course::getLatitude, Course::getLongitude, MAX_KM));
+        }
+
+        public void remove(Course course) {
+            grid.remove(course);
+        }
+
+        String normalisedName(Course course) {
+            return normalisedNames.computeIfAbsent(course, c -> normalise(c.getName()));
+        }
+    }
+
+    /** Whole words dropped from a name: they say "golf club", not which one. */
+    private static final Set<String> CLUB_WORDS = Set.of("golfklubb", "golfpark", "golfbane", "golf", "klubb", "gk");
+
+    /**
+     * Folds a club name to the form two spellings of the same club share: lower case, no
+     * parenthetical, "&" as "og", Norwegian letters and accents flattened, "aa" as "a", club
+     * words dropped, and single spaces between what's left. Runs in two passes over the name
+     * with no regexes; the Unicode decomposition only runs when a non-ASCII letter survives
+     * the first pass, which for Norwegian names is rare once ø, æ and å are mapped.
+     */
     public static String normalise(String name) {
         if (name == null) return "";
-        String folded = name.toLowerCase(Locale.ROOT)
-                .replaceAll("\\([^)]*\\)", " ")
-                .replace("&", " og ")
-                .replace("ø", "o").replace("æ", "ae").replace("å", "a")
-                .replace("aa", "a");
-        folded = Normalizer.normalize(folded, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
-        return folded.replaceAll("\\b(golfklubb|golfpark|golfbane|golf|klubb|gk)\\b", " ")
-                .replaceAll("[^a-z0-9]", " ")
-                .replaceAll("\\s+", " ")
-                .trim();
+        String lower = name.toLowerCase(Locale.ROOT);
+
+        // Pass 1: parentheticals, "&", ø/æ/å, and "aa" -> "a". The "aa" collapse pairs letters
+        // left to right without overlap, so "aaa" keeps two; pairedA tracks whether the last
+        // 'a' written is still free to absorb the next one.
+        StringBuilder folded = new StringBuilder(lower.length() + 8);
+        boolean pairedA = true;
+        boolean noCloseAhead = false;
+        boolean ascii = true;
+        for (int i = 0; i < lower.length(); i++) {
+            char ch = lower.charAt(i);
+            if (ch == '(' && !noCloseAhead) {
+                int close = lower.indexOf(')', i + 1);
+                if (close >= 0) {
+                    folded.append(' ');
+                    pairedA = true;
+                    i = close;
+                    continue;
+                }
+                noCloseAhead = true;
+            }
+            switch (ch) {
+                case '&' -> { folded.append(" og "); pairedA = true; }
+                case 'ø' -> { folded.append('o'); pairedA = true; }
+                case 'æ' -> { appendA(folded, pairedA); folded.append('e'); pairedA = true; }
+                case 'å', 'a' -> pairedA = appendA(folded, pairedA);
+                default -> {
+                    folded.append(ch);
+                    pairedA = true;
+                    if (ch >= 0x80) ascii = false;
+                }
+            }
+        }
+
+        CharSequence plain = folded;
+        if (!ascii) {
+            String decomposed = Normalizer.normalize(folded, Normalizer.Form.NFD);
+            StringBuilder stripped = new StringBuilder(decomposed.length());
+            for (int i = 0; i < decomposed.length(); i++) {
+                char ch = decomposed.charAt(i);
+                int type = Character.getType(ch);
+                if (type != Character.NON_SPACING_MARK && type != Character.ENCLOSING_MARK
+                        && type != Character.COMBINING_SPACING_MARK) {
+                    stripped.append(ch);
+                }
+            }
+            plain = stripped;
+        }
+
+        // Pass 2: split into words (letters, digits, '_'), drop club words, and keep only
+        // [a-z0-9] runs joined by single spaces. Anything else — punctuation, '_', letters
+        // with no ASCII form — separates words.
+        StringBuilder out = new StringBuilder(plain.length());
+        int i = 0;
+        while (i < plain.length()) {
+            if (!isWordChar(plain.charAt(i))) {
+                i++;
+                continue;
+            }
+            int wordEnd = i;
+            while (wordEnd < plain.length() && isWordChar(plain.charAt(wordEnd))) wordEnd++;
+            if (!CLUB_WORDS.contains(plain.subSequence(i, wordEnd).toString())) {
+                for (int j = i; j < wordEnd; j++) {
+                    char ch = plain.charAt(j);
+                    boolean keep = (ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9');
+                    if (!keep) {
+                        if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') out.append(' ');
+                        continue;
+                    }
+                    if (j == i && out.length() > 0 && out.charAt(out.length() - 1) != ' ') out.append(' ');
+                    out.append(ch);
+                }
+            }
+            i = wordEnd;
+        }
+        int end = out.length();
+        if (end > 0 && out.charAt(end - 1) == ' ') out.setLength(end - 1);
+        return out.toString();
+    }
+
+    private static boolean appendA(StringBuilder folded, boolean pairedA) {
+        if (!pairedA) return true;  // the previous 'a' absorbs this one
+        folded.append('a');
+        return false;
+    }
+
+    private static boolean isWordChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '_';
     }
 
     public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
-        double earthRadiusKm = 6371.0;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        return earthRadiusKm * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return GeoGrid.distanceKm(lat1, lon1, lat2, lon2);
     }
 
     /** Candidates within {@link #MAX_KM} of the club, regardless of name. */
     public List<Course> nearby(ClubRecord club, List<Course> candidates) {
-        return candidates.stream()
-                .filter(c -> c.getLatitude() != null && c.getLongitude() != null)
-                .filter(c -> distanceKm(club.lat(), club.lon(), c.getLatitude(), c.getLongitude()) <= MAX_KM)
-                .toList();
+        return nearby(club, Candidates.of(candidates));
+    }
+
+    public List<Course> nearby(ClubRecord club, Candidates candidates) {
+        return candidates.grid.within(club.lat(), club.lon(), MAX_KM);
     }
 
     public Match match(ClubRecord club, List<Course> candidates) {
+        return match(club, Candidates.of(candidates));
+    }
+
+    public Match match(ClubRecord club, Candidates candidates) {
         String target = normalise(club.name());
 
         List<Course> near = nearby(club, candidates);
 
         List<Course> sameName = near.stream()
-                .filter(c -> normalise(c.getName()).equals(target))
+                .filter(c -> candidates.normalisedName(c).equals(target))
                 .toList();
 
         // An exact normalised-name match wins even if another, differently-named course is
@@ -0,0 +1,216 @@
+package fritids.norskgolf.service.geo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Points bucketed into square lat/lon cells, so a radius query only looks at the few cells that
+ * can reach it instead of every point. Inside those cells a cheap bounding-box test runs before
+ * the exact haversine. Does not wrap at the antimeridian — nothing this app indexes is near it.
+ */
+public final class GeoGrid<T> {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+
+    private record Point<T>(T item, double lat, double lon, int seq) {}
+
+    /** A {@link #nearest} result: the item and how far it is from the query point. */
+    public record Hit<T>(T item, double km) {}
+
+    private final double cellDeg;
+    private final Map<Long, List<Point<T>>> cells = new HashMap<>();
+    // Identity, not equals: Course.equals compares externalIds, and two distinct rows may share none.
+    private final Map<T, Point<T>> points = new IdentityHashMap<>();
+    private int seq;
+    // Occupied extent in cells, so a ring search knows when there is nothing left to find.
+    // Only ever grows; a removal can leave it too wide, which costs a few empty rings at most.
+    private long minRow = Long.MAX_VALUE, maxRow = Long.MIN_VALUE, minCol = Long.MAX_VALUE, maxCol = Long.MIN_VALUE;
+
+    /** @param cellKm roughly the radius of a typical query; much smaller or larger only costs speed */
+    public GeoGrid(double cellKm) {
+        this.cellDeg = cellKm / KM_PER_DEGREE;
+    }
+
+    /** Indexes every item that has both coordinates; the rest can never be near anything. */
+    public static <T> GeoGrid<T> of(Collection<? extends T> items, Function<T, Double> lat, Function<T, Double> lon,
+                                    double cellKm) {
+        GeoGrid<T> grid = new GeoGrid<>(cellKm);
+        for (T item : items) {
+            Double itemLat = lat.apply(item);
+            Double itemLon = lon.apply(item);
+            if (itemLat != null && itemLon != null) grid.add(item, itemLat, itemLon);
+        }
+        return grid;
+    }
+
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    public void add(T item, double lat, double lon) {
+        Point<T> point = new Point<>(item, lat, lon, seq++);
+        if (points.put(item, point) != null) throw new IllegalArgumentException("already indexed: " + item);
+        long r = row(lat), c = col(lon);
+        cells.computeIfAbsent(key(r, c), k -> new ArrayList<>()).add(point);
+        minRow = Math.min(minRow, r);
+        maxRow = Math.max(maxRow, r);
+        minCol = Math.min(minCol, c);
+        maxCol = Math.max(maxCol, c);
+    }
+
+    /** Removes the item (by identity). Returns false if it was never indexed or is already gone. */
+    public boolean remove(T item) {
+        Point<T> point = points.remove(item);
+        if (point == null) return false;
+        List<Point<T>> cell = cells.get(key(row(point.lat()), col(point.lon())));
+        cell.removeIf(p -> p.item() == item);
+        return true;
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    /** Items within {@code km} of the point, in the order they were added. */
+    public List<T> within(double lat, double lon, double km) {
+        List<Point<T>> hits = pointsWithin(lat, lon, km, item -> true);
+        hits.sort(Comparator.comparingInt(Point::seq));
+        List<T> items = new ArrayList<>(hits.size());
+        for (Point<T> p : hits) items.add(p.item());
+        return items;
+    }
+
+    /**
+     * Items inside the lat/lon box, edges included, in the order they were added. The box must
+     * not cross the antimeridian: {@code west <= east}.
+     */
+    public List<T> inBox(double south, double west, double north, double east) {
+        List<Point<T>> hits = new ArrayList<>();
+        for (long r = Math.max(row(south), minRow); r <= Math.min(row(north), maxRow); r++) {
+            for (long c = Math.max(col(west), minCol); c <= Math.min(col(east), maxCol); c++) {
+                List<Point<T>> cell = cells.get(key(r, c));
+                if (cell == null) continue;
+                for (Point<T> p : cell) {
+                    if (p.lat() >= south && p.lat() <= north && p.lon() >= west && p.lon() <= east) hits.add(p);
+                }
+            }
+        }
+        hits.sort(Comparator.comparingInt(Point::seq));
+        List<T> items = new ArrayList<>(hits.size());
+        for (Point<T> p : hits) items.add(p.item());
+        return items;
+    }
+
+    /**
+     * The {@code k} items closest to the point that pass {@code filter}, nearest first; ties in
+     * insertion order. Fewer than {@code k} if fewer pass.
+     * <p>
+     * Walks square rings of cells outward from the query cell until it has seen {@code k}
+     * matches, which puts an upper bound on the k-th distance. A ring is square in degrees, not
+     * in kilometres, so a closer match may still sit in a cell the rings haven't reached; one
+     * radius query out to that bound then settles it exactly.
+     */
+    public List<Hit<T>> nearest(double lat, double lon, int k, Predicate<? super T> filter) {
+        if (k <= 0 || points.isEmpty()) return List.of();
+        long row = row(lat), col = col(lon);
+        long lastRing = Math.max(Math.max(row - minRow, maxRow - row), Math.max(col - minCol, maxCol - col));
+
+        // From outside the occupied extent, the rings that can't reach it are skipped outright.
+        long firstRing = Math.max(0, Math.max(Math.max(minRow - row, row - maxRow), Math.max(minCol - col, col - maxCol)));
+
+        List<Double> seen = new ArrayList<>();
+        for (long ring = firstRing; ring <= lastRing && seen.size() < k; ring++) {
+            for (long r = Math.max(row - ring, minRow); r <= Math.min(row + ring, maxRow); r++) {
+                if (r == row - ring || r == row + ring) {
+                    // The ring's top and bottom edges: the whole row, clipped to the extent.
+                    for (long c = Math.max(col - ring, minCol); c <= Math.min(col + ring, maxCol); c++) {
+                        scan(r, c, lat, lon, filter, seen);
+                    }
+                } else {
+                    // In between, just the two ends.
+                    if (col - ring >= minCol) scan(r, col - ring, lat, lon, filter, seen);
+                    if (col + ring <= maxCol) scan(r, col + ring, lat, lon, filter, seen);
+                }
+            }
+        }
+        if (seen.isEmpty()) return List.of();
+
+        seen.sort(null);
+        List<Point<T>> candidates;
+        if (seen.size() < k) {
+            candidates = allPoints(filter);  // the rings covered every cell: fewer than k match at all
+        } else {
+            // A hair of slack so rounding in the box prefilter can't drop the k-th point itself.
+            double bound = seen.get(k - 1) * (1 + 1e-9) + 1e-9;
+            candidates = pointsWithin(lat, lon, bound, filter);
+        }
+
+        List<Hit<T>> hits = new ArrayList<>(candidates.size());
+        candidates.sort(Comparator.comparingInt(Point::seq));
+        for (Point<T> p : candidates) hits.add(new Hit<>(p.item(), distanceKm(lat, lon, p.lat(), p.lon())));
+        hits.sort(Comparator.comparingDouble(Hit::km));  // stable: equal distances keep insertion order
+        return hits.size() > k ? new ArrayList<>(hits.subList(0, k)) : hits;
+    }
+
+    private void scan(long r, long c, double lat, double lon, Predicate<? super T> filter, List<Double> seen) {
+        List<Point<T>> cell = cells.get(key(r, c));
+        if (cell == null) return;
+        for (Point<T> p : cell) {
+            if (filter.test(p.item())) seen.add(distanceKm(lat, lon, p.lat(), p.lon()));
+        }
+    }
+
+    private List<Point<T>> pointsWithin(double lat, double lon, double km, Predicate<? super T> filter) {
+        double dLat = km / KM_PER_DEGREE;
+        // A degree of longitude shrinks towards the poles; size the box for the widest latitude it spans.
+        double widestLat = Math.min(89.0, Math.abs(lat) + dLat);
+        double dLon = dLat / Math.cos(Math.toRadians(widestLat));
+
+        List<Point<T>> hits = new ArrayList<>();
+        // Clipped to the occupied extent: from far away the bound spans most of the globe.
+        for (long r = Math.max(row(lat - dLat), minRow); r <= Math.min(row(lat + dLat), maxRow); r++) {
+            for (long c = Math.max(col(lon - dLon), minCol); c <= Math.min(col(lon + dLon), maxCol); c++) {
+                List<Point<T>> cell = cells.get(key(r, c));
+                if (cell == null) continue;
+                for (Point<T> p : cell) {
+                    if (Math.abs(p.lat() - lat) > dLat || Math.abs(p.lon() - lon) > dLon) continue;
+                    if (distanceKm(lat, lon, p.lat(), p.lon()) <= km && filter.test(p.item())) hits.add(p);
+                }
+            }
+        }
+        return hits;
+    }
+
+    private List<Point<T>> allPoints(Predicate<? super T> filter) {
+        List<Point<T>> all = new ArrayList<>();
+        for (Point<T> p : points.values()) {
+            if (filter.test(p.item())) all.add(p);
+        }
+        return all;
+    }
+
+    private long row(double lat) {
+        return (long) Math.floor(lat / cellDeg);
+    }
+
+    private long col(double lon) {
+        return (long) Math.floor(lon / cellDeg);
+    }
+
+    private static long key(long row, long col) {
+        return (row << 32) ^ (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,88 @@
+package fritids.norskgolf;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The anonymous course list is served from pre-serialised bytes. These tests pin the HTTP side:
+ * a strong ETag per representation, 304 on a matching If-None-Match, and cache headers that
+ * Spring Security's default no-store doesn't overwrite.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:catalogbody;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.clubs.background-sync=false"
+})
+@AutoConfigureMockMvc
+class CourseCatalogEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void anonymousListCarriesAnETagAndRevalidatesTo304() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/courses"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andReturn();
+        assertTrue(first.getResponse().getHeaders("Vary").stream().anyMatch(v -> v.contains("Accept-Encoding")),
+                "a cache must not hand the gzip body to a client that can't read it");
+        String etag = first.getResponse().getHeader("ETag");
+        assertNotNull(etag);
+        assertFalse(etag.startsWith("W/"), "strong ETag: the bytes are identical, not just equivalent");
+        assertTrue(first.getResponse().getContentAsString().contains("\"played\":false"));
+
+        MvcResult revalidated = mockMvc.perform(get("/api/courses").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertEquals(0, revalidated.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    void gzipIsItsOwnRepresentationWithItsOwnETag() throws Exception {
+        MvcResult plain = mockMvc.perform(get("/api/courses/catalog")).andReturn();
+        MvcResult gzipped = mockMvc.perform(get("/api/courses/catalog").header("Accept-Encoding", "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+
+        String plainTag = plain.getResponse().getHeader("ETag");
+        String gzipTag = gzipped.getResponse().getHeader("ETag");
+        assertNotEquals(plainTag, gzipTag);
+
+        byte[] unzipped = new GZIPInputStream(new ByteArrayInputStream(gzipped.getResponse().getContentAsByteArray()))
+                .readAllBytes();
+        assertArrayEquals(plain.getResponse().getContentAsByteArray(), unzipped);
+        assertEquals("no-cache, public", plain.getResponse().getHeader("Cache-Control"));
+
+        // A client that cached the plain body and now asks for gzip must get the gzip body.
+        mockMvc.perform(get("/api/courses/catalog").header("Accept-Encoding", "gzip").header("If-None-Match", plainTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void refusingGzipGetsThePlainBody() throws Exception {
+        mockMvc.perform(get("/api/courses/catalog").header("Accept-Encoding", "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    @Test
+    void thePlayedOverlayNeedsALogin() throws Exception {
+        mockMvc.perform(get("/api/courses/played")).andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,102 @@
+package fritids.norskgolf;
+
+import fritids.norskgolf.entities.User;
+import fritids.norskgolf.repository.UserRepository;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /api/health is public for the load balancer and carries catalog state only; the per-instance
+ * counters live on /api/metrics, which answers the configured operators and nobody else.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metricsendpoint;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.clubs.background-sync=false",
+        "app.metrics.admins=someone@else.test, Operator@Test.local"
+})
+@AutoConfigureMockMvc
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository<? extends Session> sessions;
+
+    @Test
+    void healthIsPublicButCarriesNoCounters() throws Exception {
+        mockMvc.perform(get("/api/health"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"))
+                .andExpect(jsonPath("$.catalog.state").exists())
+                .andExpect(jsonPath("$.logins").doesNotExist())
+                .andExpect(jsonPath("$.sessions").doesNotExist());
+    }
+
+    @Test
+    void theCountersNeedALogin() throws Exception {
+        mockMvc.perform(get("/api/metrics")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void anOrdinaryLoginIsForbidden() throws Exception {
+        mockMvc.perform(get("/api/metrics").cookie(loggedIn("golfer")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void aConfiguredOperatorGetsTheCounters() throws Exception {
+        mockMvc.perform(get("/api/metrics").cookie(loggedIn("operator")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.logins.userWrites").exists())
+                .andExpect(jsonPath("$.sessions.attributeWrites").exists());
+    }
+
+    /**
+     * A session cookie for a user that is already signed in, the way the OAuth2 login leaves it:
+     * a security context in the JDBC session whose principal name is the provider id.
+     */
+    private Cookie loggedIn(String name) {
+        User user = new User();
+        user.setUsername(name + "@test.local");
+        user.setEmail(name + "@test.local");
+        user.setProviderId(name);
+        userRepository.save(user);
+
+        String sessionId = signIn(sessions, name);
+        // The default cookie serializer base64-encodes the session id.
+        return new Cookie("__session", Base64.getEncoder().encodeToString(sessionId.getBytes()));
+    }
+
+    private static <S extends Session> String signIn(SessionRepository<S> repository, String name) {
+        S session = repository.createSession();
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+                new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(
+                        name, null, List.of(new SimpleGrantedAuthority("OAUTH2_USER")))));
+        repository.save(session);
+        return session.getId();
+    }
+}
@@ -32,7 +32,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
         "spring.datasource.url=jdbc:h2:mem:openinview;DB_CLOSE_DELAY=-1",
         "spring.datasource.driver-class-name=org.h2.Driver",
         "spring.datasource.username=sa",
-        "spring.datasource.password="
+        "spring.datasource.password=",
+        // these tests build on the synced course table, so sync before the context is handed over
+        "app.clubs.background-sync=false"
 })
 class OpenInViewTest {
 
@@ -0,0 +1,105 @@
+package fritids.norskgolf;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Session rows are sized by these two attributes: the security context after a Google login and
+ * the CSRF token every visitor gets. The JDK sizes are logged next to ours as the baseline.
+ */
+class SessionAttributeCodecTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionAttributeCodecTest.class);
+
+    private final SessionAttributeCodec codec = new SessionAttributeCodec(getClass().getClassLoader());
+
+    private static SecurityContextImpl googleLogin() {
+        Instant issued = Instant.parse("2026-10-17T08:00:00Z");
+        // Mutable collections, as the JWT decoder hands them over.
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", "https://accounts.google.com");
+        claims.put("sub", "108234567890123456789");
+        claims.put("aud", new ArrayList<>(List.of("client-id.apps.googleusercontent.com")));
+        claims.put("email", "kari@example.no");
+        claims.put("email_verified", true);
+        claims.put("given_name", "Kari");
+        claims.put("family_name", "Nordmann");
+        claims.put("picture", "https://lh3.googleusercontent.com/a/photo");
+        claims.put("iat", issued);
+        claims.put("exp", issued.plusSeconds(3600));
+        OidcIdToken idToken = new OidcIdToken("eyJhbGciOiJSUzI1NiJ9.e30.c2lnbmF0dXJl", issued, issued.plusSeconds(3600), claims);
+        DefaultOidcUser user = new DefaultOidcUser(
+                List.of(new SimpleGrantedAuthority("OIDC_USER"), new SimpleGrantedAuthority("SCOPE_email")), idToken);
+        return new SecurityContextImpl(new OAuth2AuthenticationToken(user, user.getAuthorities(), "google"));
+    }
+
+    @Test
+    void securityContextIsStoredAsSmallerJsonAndReadsBackEqual() {
+        SecurityContextImpl context = googleLogin();
+
+        byte[] bytes = codec.serialize(context);
+        byte[] jdk = new SerializingConverter().convert(context);
+        log.info("security context: json {} bytes, jdk {} bytes", bytes.length, jdk.length);
+
+        assertFalse(SessionAttributeCodec.isJdk(bytes));
+        assertTrue(bytes.length < jdk.length, bytes.length + " vs " + jdk.length);
+        assertEquals(context, codec.deserialize(bytes));
+        assertEquals(0, codec.jdkFallbacks());
+    }
+
+    @Test
+    void csrfTokenIsStoredAsJson() {
+        DefaultCsrfToken token = new DefaultCsrfToken("X-XSRF-TOKEN", "_csrf", "4f8e2d1c-0b7a-4e6f-9a3d-2c5b8e1f7a90");
+
+        byte[] bytes = codec.serialize(token);
+        byte[] jdk = new SerializingConverter().convert(token);
+        log.info("csrf token: json {} bytes, jdk {} bytes", bytes.length, jdk.length);
+
+        assertFalse(SessionAttributeCodec.isJdk(bytes));
+        assertTrue(bytes.length < jdk.length, bytes.length + " vs " + jdk.length);
+        CsrfToken back = (CsrfToken) codec.deserialize(bytes);
+        assertEquals("X-XSRF-TOKEN", back.getHeaderName());
+        assertEquals("_csrf", back.getParameterName());
+        assertEquals(token.getToken(), back.getToken());
+    }
+
+    @Test
+    void sessionsWrittenBeforeTheSwitchStillLoad() {
+        SecurityContextImpl context = googleLogin();
+        byte[] legacy = new SerializingConverter().convert(context);
+
+        assertEquals(context, codec.deserialize(legacy));
+    }
+
+    @Test
+    void valuesJsonCannotCarryFallBackToJdk() {
+        // A Long reads back from JSON as an Integer; List.of's class isn't on Security's allowlist.
+        byte[] number = codec.serialize(42L);
+        byte[] list = codec.serialize(List.of("a", "b"));
+
+        assertTrue(SessionAttributeCodec.isJdk(number));
+        assertTrue(SessionAttributeCodec.isJdk(list));
+        assertEquals(42L, codec.deserialize(number));
+        assertEquals(List.of("a", "b"), codec.deserialize(list));
+        assertEquals(2, codec.jdkFallbacks());
+        assertEquals(2, codec.writes());
+        assertEquals(number.length + list.length, codec.bytesWritten());
+    }
+}
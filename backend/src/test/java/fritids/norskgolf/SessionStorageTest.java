@@ -0,0 +1,68 @@
+package fritids.norskgolf;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The session as the JDBC repository really stores it: attributes go through the JSON codec, and
+ * a request that only reads the session doesn't rewrite them.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sessionstorage;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.clubs.background-sync=false"
+})
+@AutoConfigureMockMvc
+class SessionStorageTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SessionAttributeCodec codec;
+
+    @Test
+    void csrfTokenIsWrittenOnceAsJson() throws Exception {
+        long writesBefore = codec.writes();
+        MvcResult first = mockMvc.perform(get("/api/csrf")).andExpect(status().isOk()).andReturn();
+        Cookie session = first.getResponse().getCookie("__session");
+        assertNotNull(session, "the first request opens the session");
+        String token = first.getResponse().getContentAsString();
+
+        List<byte[]> rows = jdbcTemplate.queryForList(
+                "select a.ATTRIBUTE_BYTES from SPRING_SESSION_ATTRIBUTES a"
+                        + " join SPRING_SESSION s on s.PRIMARY_ID = a.SESSION_PRIMARY_ID where s.SESSION_ID = ?",
+                byte[].class, decode(session.getValue()));
+        assertEquals(1, rows.size(), "just the CSRF token");
+        assertFalse(SessionAttributeCodec.isJdk(rows.get(0)));
+        assertEquals(writesBefore + 1, codec.writes());
+
+        // Same session again: the token is read, not set, so nothing is reserialised.
+        MvcResult second = mockMvc.perform(get("/api/csrf").cookie(session)).andExpect(status().isOk()).andReturn();
+        assertEquals(token, second.getResponse().getContentAsString());
+        assertEquals(writesBefore + 1, codec.writes());
+    }
+
+    private static String decode(String cookieValue) {
+        // The default cookie serializer base64-encodes the session id.
+        return new String(Base64.getDecoder().decode(cookieValue));
+    }
+}
@@ -0,0 +1,161 @@
+package fritids.norskgolf;
+
+import fritids.norskgolf.dto.RoundDto;
+import fritids.norskgolf.dto.RoundRequest;
+import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.entities.Round;
+import fritids.norskgolf.entities.User;
+import fritids.norskgolf.repository.CourseRepository;
+import fritids.norskgolf.repository.RoundRepository;
+import fritids.norskgolf.repository.UserRepository;
+import fritids.norskgolf.repository.UserStatsRepository;
+import fritids.norskgolf.service.GolfService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The overview's round count is read from user_stats rather than counted. These run against a real
+ * database so the UPDATE ... + 1 queries are exercised inside logRound's and deleteRound's own
+ * transactions.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:userstats;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.clubs.background-sync=false"
+})
+class UserStatsTest {
+
+    @Autowired private GolfService golfService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private UserStatsRepository userStatsRepository;
+    @Autowired private RoundRepository roundRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private User user(String name) {
+        User user = new User();
+        user.setUsername(name + "@test.local");
+        user.setEmail(name + "@test.local");
+        user.setProviderId(name);
+        return userRepository.save(user);
+    }
+
+    private RoundRequest request(Course course, String date) {
+        RoundRequest r = new RoundRequest();
+        r.setCourseId(course.getId());
+        r.setDate(date);
+        r.setScore(90);
+        return r;
+    }
+
+    @Test
+    void logAndDeleteKeepTheCountCurrent() {
+        User user = user("stats-log-delete");
+        Course course = courseRepository.findByActiveTrue().get(0);
+
+        // No row yet: the first overview creates it.
+        assertEquals(0, golfService.getDashboardStats(user).getRoundCount());
+        assertTrue(userStatsRepository.findById(user.getId()).isPresent());
+
+        golfService.logRound(user, request(course, "2024-05-01"));
+        RoundDto second = golfService.logRound(user, request(course, "2024-05-02"));
+        golfService.logRound(user, request(course, "2024-05-03"));
+        assertEquals(3, userStatsRepository.findById(user.getId()).orElseThrow().getRoundCount());
+
+        golfService.deleteRound(second.getId(), user);
+
+        assertEquals(2, golfService.getDashboardStats(user).getRoundCount());
+        assertEquals(2, golfService.getDashboardStats(user).getRecentRounds().size());
+    }
+
+    /** A round from before user_stats existed: written straight to the table, no stats row. */
+    private void legacyRound(User user, Course course, String date) {
+        Round round = new Round();
+        round.setUser(user);
+        round.setCourse(course);
+        round.setDate(LocalDate.parse(date));
+        round.setScore(90);
+        roundRepository.save(round);
+    }
+
+    @Test
+    void roundsLoggedBeforeTheRowExistedAreCountedOnFirstRead() {
+        User user = user("stats-legacy");
+        Course course = courseRepository.findByActiveTrue().get(0);
+        for (int day = 1; day <= 7; day++) {
+            legacyRound(user, course, "2024-06-0" + day);
+        }
+        assertFalse(userStatsRepository.findById(user.getId()).isPresent());
+
+        assertEquals(7, golfService.getDashboardStats(user).getRoundCount());
+        assertEquals(5, golfService.getDashboardStats(user).getRecentRounds().size());
+        assertEquals(7, userStatsRepository.findById(user.getId()).orElseThrow().getRoundCount());
+    }
+
+    @Test
+    void theFirstRoundLoggedAfterTheUpgradeSeedsTheRowItself() {
+        // The increment used to find no row and do nothing, leaving the count to the next read.
+        User user = user("stats-legacy-log");
+        Course course = courseRepository.findByActiveTrue().get(0);
+        legacyRound(user, course, "2024-06-01");
+        legacyRound(user, course, "2024-06-02");
+
+        golfService.logRound(user, request(course, "2024-06-03"));
+
+        assertEquals(3, userStatsRepository.findById(user.getId()).orElseThrow().getRoundCount());
+    }
+
+    @Test
+    void aRoundLoggedWhileTheFirstReadSeedsTheRowIsNotLost() throws Exception {
+        // The overview's seed is caught between its count and its commit; meanwhile a round is
+        // logged. Previously the seed stored the stale count and the round's increment, finding
+        // no row yet, was dropped for good.
+        User user = user("stats-interleaved");
+        Course course = courseRepository.findByActiveTrue().get(0);
+        legacyRound(user, course, "2024-07-01");
+        legacyRound(user, course, "2024-07-02");
+
+        CountDownLatch seeded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> read = pool.submit(() -> transactionTemplate.executeWithoutResult(tx -> {
+                userStatsRepository.createIfAbsent(user.getId());
+                seeded.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(seeded.await(5, TimeUnit.SECONDS));
+
+            Future<?> write = pool.submit(() -> golfService.logRound(user, request(course, "2024-07-03")));
+            Thread.sleep(200);
+            release.countDown();
+            read.get(5, TimeUnit.SECONDS);
+            write.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+
+        assertEquals(3, userStatsRepository.findById(user.getId()).orElseThrow().getRoundCount());
+        assertEquals(3, golfService.getDashboardStats(user).getRoundCount());
+    }
+}
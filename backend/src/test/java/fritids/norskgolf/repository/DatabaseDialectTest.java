@@ -0,0 +1,38 @@
+package fritids.norskgolf.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseDialectTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @InjectMocks private DatabaseDialect dialect;
+
+    @Test
+    void asksTheDatabaseOnceAndRemembers() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+
+        assertTrue(dialect.isPostgres());
+        assertTrue(dialect.isPostgres());
+
+        verify(jdbcTemplate, times(1)).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    void anythingElseIsNotPostgres() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+
+        assertFalse(dialect.isPostgres());
+    }
+}
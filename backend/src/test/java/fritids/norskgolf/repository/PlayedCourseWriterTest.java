@@ -0,0 +1,88 @@
+package fritids.norskgolf.repository;
+
+import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.entities.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:playedwriter;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.clubs.background-sync=false"
+})
+class PlayedCourseWriterTest {
+
+    @Autowired private PlayedCourseRepository playedCourseRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private CourseRepository courseRepository;
+
+    private User user(String name) {
+        User user = new User();
+        user.setUsername(name + "@test.local");
+        user.setEmail(name + "@test.local");
+        user.setProviderId(name);
+        return userRepository.save(user);
+    }
+
+    @Test
+    void insertingTwiceLeavesOneRowAndSaysWhichCallAddedIt() {
+        User user = user("writer-single");
+        Course course = courseRepository.findByActiveTrue().get(0);
+
+        assertTrue(playedCourseRepository.insertIfAbsent(user.getId(), course.getId()));
+        assertFalse(playedCourseRepository.insertIfAbsent(user.getId(), course.getId()));
+
+        assertEquals(List.of(course.getId()), playedCourseRepository.findCourseIdsByUserId(user.getId()));
+    }
+
+    @Test
+    void theBatchFormReturnsOnlyTheNewlyMarkedCourses() {
+        User user = user("writer-batch");
+        List<Course> courses = courseRepository.findByActiveTrue().subList(0, 4);
+        playedCourseRepository.insertIfAbsent(user.getId(), courses.get(1).getId());
+
+        List<Long> added = playedCourseRepository.insertIfAbsent(user.getId(),
+                courses.stream().map(Course::getId).toList());
+
+        assertEquals(List.of(courses.get(0).getId(), courses.get(2).getId(), courses.get(3).getId()), added);
+        assertEquals(4, playedCourseRepository.countByUserId(user.getId()));
+    }
+
+    @Test
+    void concurrentDoubleSubmitsNeitherFailNorDuplicate() throws Exception {
+        User user = user("writer-race");
+        Long courseId = courseRepository.findByActiveTrue().get(0).getId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> {
+                go.await();
+                return playedCourseRepository.insertIfAbsent(user.getId(), courseId);
+            }));
+        }
+        go.countDown();
+        int inserted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(10, TimeUnit.SECONDS)) inserted++;
+        }
+        pool.shutdown();
+
+        assertEquals(1, inserted);
+        assertEquals(1, playedCourseRepository.countByUserId(user.getId()));
+    }
+}
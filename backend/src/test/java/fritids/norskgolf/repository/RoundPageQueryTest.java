@@ -0,0 +1,40 @@
+package fritids.norskgolf.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The shape of the page query, which H2 can't tell us anything about: what matters is what
+ * Postgres can turn into a bound on idx_round_user_date. RoundPageTest covers the rows.
+ */
+class RoundPageQueryTest {
+
+    @Test
+    void theFirstPageHasNoKeysetPredicateAndNoNullGuards() {
+        String jpql = RoundPageQueryImpl.jpql(false, false, false, false);
+
+        assertFalse(jpql.contains("afterDate"), jpql);
+        assertFalse(jpql.contains("is null"), jpql);
+        assertTrue(jpql.endsWith("order by r.date desc, r.id desc"), jpql);
+    }
+
+    @Test
+    void laterPagesCarryARangeBoundNextToTheTieBreak() {
+        String jpql = RoundPageQueryImpl.jpql(true, false, false, false);
+
+        assertTrue(jpql.contains("r.date <= :afterDate and (r.date < :afterDate or r.id < :afterId)"), jpql);
+        assertFalse(jpql.contains("is null"), jpql);
+    }
+
+    @Test
+    void onlyTheFiltersInUseAreInTheQuery() {
+        String courseOnly = RoundPageQueryImpl.jpql(true, true, false, false);
+        assertTrue(courseOnly.contains("c.id = :courseId"), courseOnly);
+        assertFalse(courseOnly.contains(":from") || courseOnly.contains(":to"), courseOnly);
+
+        String range = RoundPageQueryImpl.jpql(false, false, true, true);
+        assertTrue(range.contains("r.date >= :from and r.date <= :to"), range);
+        assertFalse(range.contains(":courseId"), range);
+    }
+}
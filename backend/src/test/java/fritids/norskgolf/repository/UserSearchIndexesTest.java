@@ -0,0 +1,56 @@
+package fritids.norskgolf.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSearchIndexesTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private DatabaseDialect dialect;
+    @InjectMocks private UserSearchIndexes userSearchIndexes;
+
+    private void database(String product) {
+        when(dialect.isPostgres()).thenReturn("PostgreSQL".equals(product));
+    }
+
+    @Test
+    void createsATrigramIndexPerSearchedColumnOnPostgres() {
+        database("PostgreSQL");
+
+        userSearchIndexes.ensureIndexes();
+
+        verify(jdbcTemplate).execute("create extension if not exists pg_trgm");
+        verify(jdbcTemplate).execute("create index if not exists idx_users_first_name_trgm on users using gin (lower(first_name) gin_trgm_ops)");
+        verify(jdbcTemplate, times(UserSearchIndexes.COLUMNS.size())).execute(startsWith("create index if not exists"));
+    }
+
+    @Test
+    void leavesOtherDatabasesAlone() {
+        database("H2");
+
+        userSearchIndexes.ensureIndexes();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void aMissingExtensionPermissionOnlyCostsTheIndexes() {
+        database("PostgreSQL");
+        doThrow(new DataAccessResourceFailureException("permission denied to create extension"))
+                .when(jdbcTemplate).execute("create extension if not exists pg_trgm");
+
+        userSearchIndexes.ensureIndexes(); // must not fail startup
+
+        verify(jdbcTemplate, never()).execute(startsWith("create index"));
+    }
+}
@@ -0,0 +1,114 @@
+package fritids.norskgolf.service;
+
+import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.repository.ClubListStateRepository;
+import fritids.norskgolf.repository.CourseChangeRepository;
+import fritids.norskgolf.repository.CourseRepository;
+import fritids.norskgolf.service.catalog.CourseCatalogProvider;
+import fritids.norskgolf.service.clubs.ClubListLoader;
+import fritids.norskgolf.service.clubs.ClubMatcher;
+import fritids.norskgolf.service.clubs.ClubRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Benchmark for reconcile at ten thousand clubs against ten thousand courses. The old version
+ * scanned every existing course per club for the externalId lookup and list-removed claimed ones,
+ * which is quadratic; this keeps it honest without a database, so only the matching is timed.
+ * The timeout is a generous ceiling for a cold JVM on a slow runner, not the expected time — the
+ * logged figure is the number to watch.
+ */
+@ExtendWith(MockitoExtension.class)
+class CourseSyncReconcileScaleTest {
+
+    private static final int SIZE = 10_000;
+
+    @Mock private CourseRepository courseRepository;
+    @Mock private ClubListLoader loader;
+    @Mock private CourseCatalogProvider courseCatalog;
+    @Mock private ClubListStateRepository clubListStateRepository;
+    @Mock private CourseChangeRepository courseChangeRepository;
+
+    private static final Logger log = LoggerFactory.getLogger(CourseSyncReconcileScaleTest.class);
+
+    // A 0.1° grid: ~11 km between rows and at least ~4 km between columns up north, so no two
+    // generated places fall inside the matcher's 3 km radius of each other.
+    private static double lat(int slot) { return 58.0 + (slot / 110) * 0.1; }
+    private static double lon(int slot) { return 5.0 + (slot % 110) * 0.1; }
+
+    private static Course course(long id, String externalId, int slot) {
+        Course c = new Course();
+        c.setId(id);
+        c.setName("Bane " + slot + " GK");
+        c.setExternalId(externalId);
+        c.setLatitude(lat(slot));
+        c.setLongitude(lon(slot));
+        c.setActive(true);
+        return c;
+    }
+
+    private static ClubRecord club(String clubId, int slot) {
+        return new ClubRecord(clubId, "Bane " + slot + " Golfklubb", lat(slot), lon(slot), "Kommune", "Fylke", 18);
+    }
+
+    @Test
+    void reconcilesTenThousandClubsWithoutQuadraticScans() {
+        List<Course> existing = new ArrayList<>();
+        List<ClubRecord> clubs = new ArrayList<>();
+        int slot = 0;
+        // 5000 already keyed by clubId, 4000 legacy OSM rows found by position, 1000 closed clubs ...
+        for (int i = 0; i < 5000; i++, slot++) {
+            existing.add(course(slot, "club-" + slot, slot));
+            clubs.add(club("club-" + slot, slot));
+        }
+        for (int i = 0; i < 4000; i++, slot++) {
+            existing.add(course(slot, "osm-" + slot, slot));
+            clubs.add(club("club-" + slot, slot));
+        }
+        for (int i = 0; i < 1000; i++, slot++) {
+            existing.add(course(slot, "osm-" + slot, slot));
+        }
+        // ... and 1000 new clubs nowhere near an existing course.
+        for (int i = 0; i < 1000; i++, slot++) {
+            clubs.add(club("club-" + slot, slot));
+        }
+        when(courseRepository.findAll()).thenReturn(existing);
+
+        CourseSyncService service = new CourseSyncService(courseRepository, loader, new ClubMatcher(), courseCatalog,
+                clubListStateRepository,
+                courseChangeRepository);
+
+        long start = System.nanoTime();
+        CourseSyncService.SyncSummary summary = assertTimeoutPreemptively(Duration.ofSeconds(15),
+                () -> service.reconcile(clubs, false));
+        log.info("Reconciled {} clubs against {} courses in {} ms",
+                clubs.size(), existing.size(), (System.nanoTime() - start) / 1_000_000);
+
+        assertEquals(9000, summary.matched());
+        assertEquals(1000, summary.inserted());
+        assertEquals(1000, summary.deactivated());
+        assertTrue(summary.ambiguous().isEmpty());
+
+        // Every write goes through a single saveAll so Hibernate can batch it.
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Course>> written = ArgumentCaptor.forClass(List.class);
+        verify(courseRepository).saveAll(written.capture());
+        verify(courseRepository, never()).save(any());
+        assertEquals(SIZE + 1000, written.getValue().size());
+        assertEquals("club-5000", existing.get(5000).getExternalId(), "a proximity match takes the club's id");
+        assertFalse(existing.get(9000).isActive());
+    }
+}
@@ -0,0 +1,79 @@
+package fritids.norskgolf.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseSyncRunnerTest {
+
+    @Mock private CourseSyncService courseSyncService;
+    @Mock private TaskExecutor taskExecutor;
+
+    @InjectMocks private CourseSyncRunner runner;
+
+    @Test
+    void isNotCurrentUntilTheSyncHasRun() {
+        CourseSyncRunner.Status status = runner.status();
+
+        assertEquals(CourseSyncRunner.State.SYNCING, status.state());
+        assertFalse(status.catalogCurrent());
+        assertNull(status.lastSyncMs());
+    }
+
+    @Test
+    void flipsToCurrentOnceTheListIsApplied() {
+        when(courseSyncService.syncOnStartup()).thenReturn(true);
+
+        runner.run();
+
+        CourseSyncRunner.Status status = runner.status();
+        assertEquals(CourseSyncRunner.State.CURRENT, status.state());
+        assertTrue(status.catalogCurrent());
+        assertNotNull(status.lastSyncMs());
+        assertNotNull(status.lastFinishedAt());
+    }
+
+    @Test
+    void aRefusedListLeavesTheCatalogStale() {
+        when(courseSyncService.syncOnStartup()).thenReturn(false);
+
+        runner.run();
+
+        assertEquals(CourseSyncRunner.State.STALE, runner.status().state());
+    }
+
+    @Test
+    void aFailedCommitLeavesTheCatalogStaleInsteadOfKillingTheThread() {
+        when(courseSyncService.syncOnStartup()).thenThrow(new IllegalStateException("connection reset"));
+
+        runner.run();
+
+        assertEquals(CourseSyncRunner.State.STALE, runner.status().state());
+        assertFalse(runner.status().catalogCurrent());
+    }
+
+    @Test
+    void theBackgroundSyncRunsOnTheManagedExecutor() {
+        ReflectionTestUtils.setField(runner, "background", true);
+
+        runner.onApplicationReady();
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskExecutor).execute(task.capture());
+        verifyNoInteractions(courseSyncService);
+        assertEquals(CourseSyncRunner.State.SYNCING, runner.status().state());
+
+        when(courseSyncService.syncOnStartup()).thenReturn(true);
+        task.getValue().run();
+        assertEquals(CourseSyncRunner.State.CURRENT, runner.status().state());
+    }
+}
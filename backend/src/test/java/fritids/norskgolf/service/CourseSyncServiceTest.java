@@ -1,21 +1,36 @@
 package fritids.norskgolf.service;
 
 import fritids.norskgolf.dto.CourseDto;
+import fritids.norskgolf.entities.ClubListState;
 import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.entities.CourseChange;
+import fritids.norskgolf.entities.CourseChangeType;
 import fritids.norskgolf.entities.PlayedCourse;
 import fritids.norskgolf.entities.Round;
 import fritids.norskgolf.entities.User;
+import fritids.norskgolf.repository.ClubListStateRepository;
+import fritids.norskgolf.repository.CourseChangeRepository;
 import fritids.norskgolf.repository.CourseRepository;
 import fritids.norskgolf.repository.PlayedCourseRepository;
 import fritids.norskgolf.repository.RoundRepository;
 import fritids.norskgolf.repository.UserRepository;
+import fritids.norskgolf.service.clubs.ClubListLoader;
 import fritids.norskgolf.service.clubs.ClubRecord;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,7 +38,9 @@ import static org.junit.jupiter.api.Assertions.*;
         "spring.datasource.url=jdbc:h2:mem:clubsync;DB_CLOSE_DELAY=-1",
         "spring.datasource.driver-class-name=org.h2.Driver",
         "spring.datasource.username=sa",
-        "spring.datasource.password="
+        "spring.datasource.password=",
+        // these tests build on the synced course table, so sync before the context is handed over
+        "app.clubs.background-sync=false"
 })
 class CourseSyncServiceTest {
 
@@ -33,6 +50,10 @@ class CourseSyncServiceTest {
     @Autowired private PlayedCourseRepository playedCourseRepository;
     @Autowired private RoundRepository roundRepository;
     @Autowired private GolfService golfService;
+    @Autowired private ClubListStateRepository clubListStateRepository;
+    @Autowired private ClubListLoader clubListLoader;
+    @Autowired private CourseChangeRepository courseChangeRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
 
     @Test
     void updatesMatchesInsertsNewAndDeactivatesTheRestWithoutLosingHistory() {
@@ -95,11 +116,72 @@ class CourseSyncServiceTest {
         Course deactivated = courseRepository.findById(orphan.getId()).orElseThrow();
         assertFalse(deactivated.isActive(), "unmatched courses are deactivated, not deleted");
 
+        Long insertedId = courseRepository.findByExternalId("aalesund-gk").orElseThrow().getId();
+        Map<Long, Set<CourseChangeType>> logged = courseChangeRepository.findAll().stream()
+                .collect(Collectors.groupingBy(CourseChange::getCourseId,
+                        Collectors.mapping(CourseChange::getType, Collectors.toSet())));
+        assertEquals(Set.of(CourseChangeType.RENAMED, CourseChangeType.MOVED, CourseChangeType.RELINKED),
+                logged.get(existing.getId()));
+        assertEquals(Set.of(CourseChangeType.INSERTED), logged.get(insertedId));
+        assertEquals(Set.of(CourseChangeType.DEACTIVATED), logged.get(orphan.getId()));
+        List<Long> versions = courseChangeRepository.findAll().stream().map(CourseChange::getId).sorted().toList();
+        assertEquals(versions.get(versions.size() - 1) - versions.get(0) + 1, versions.size(),
+                "versions are handed out without gaps");
+
         assertEquals(1, roundRepository.findByUserIdOrderByDateDescIdDesc(user.getId()).size(),
                 "the logged round must survive the import");
         assertTrue(playedCourseRepository.existsByUserIdAndCourseId(user.getId(), orphan.getId()));
     }
 
+    @Test
+    void aSecondInstanceSyncingAtTheSameTimeWaitsForTheFirstToCommit() throws Exception {
+        // Stands in for another instance mid-sync: it holds the club_list_state row lock.
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = pool.submit(() -> transactionTemplate.executeWithoutResult(tx -> {
+                clubListStateRepository.findForUpdate("golf_clubs.json").orElseThrow();
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            Future<Boolean> second = pool.submit(courseSyncService::syncOnStartup);
+            Thread.sleep(300);
+            assertFalse(second.isDone(), "the second sync must not read the state row while the first holds it");
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            assertTrue(second.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void aRebootWithTheSameClubListLeavesTheTableAlone() {
+        // Boot applied golf_clubs.json and recorded its hash. Wipe the table: if the second
+        // startup reconciled anyway, it would re-insert every club.
+        ClubListState state = clubListStateRepository.findById("golf_clubs.json").orElseThrow();
+        assertEquals(clubListLoader.contentHash("golf_clubs.json"), state.getContentHash());
+        assertEquals(1, state.getCatalogVersion());
+
+        roundRepository.deleteAll();
+        playedCourseRepository.deleteAll();
+        courseRepository.deleteAll();
+
+        courseSyncService.syncOnStartup();
+
+        assertEquals(0, courseRepository.count(), "an unchanged list must not be reconciled again");
+        assertEquals(1, clubListStateRepository.findById("golf_clubs.json").orElseThrow().getCatalogVersion());
+    }
+
     @Test
     void dryRunReportsWithoutWriting() {
         roundRepository.deleteAll();
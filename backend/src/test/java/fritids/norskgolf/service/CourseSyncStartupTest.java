@@ -0,0 +1,115 @@
+package fritids.norskgolf.service;
+
+import fritids.norskgolf.entities.ClubListState;
+import fritids.norskgolf.repository.ClubListStateRepository;
+import fritids.norskgolf.repository.CourseChangeRepository;
+import fritids.norskgolf.repository.CourseRepository;
+import fritids.norskgolf.service.catalog.CourseCatalogProvider;
+import fritids.norskgolf.service.clubs.ClubListLoader;
+import fritids.norskgolf.service.clubs.ClubMatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseSyncStartupTest {
+
+    @Mock private CourseRepository courseRepository;
+    @Mock private ClubListLoader loader;
+    @Mock private CourseCatalogProvider courseCatalog;
+    @Mock private ClubListStateRepository clubListStateRepository;
+    @Mock private CourseChangeRepository courseChangeRepository;
+
+    private CourseSyncService service() {
+        return new CourseSyncService(courseRepository, loader, new ClubMatcher(), courseCatalog, clubListStateRepository,
+                courseChangeRepository);
+    }
+
+    private static ClubListState applied(String hash, long version) {
+        ClubListState state = new ClubListState("golf_clubs.json");
+        state.setContentHash(hash);
+        state.setCatalogVersion(version);
+        state.setAppliedAt(Instant.parse("2025-06-01T00:00:00Z"));
+        return state;
+    }
+
+    @Test
+    void skipsTheReconcileWhenTheHashMatches() {
+        when(loader.contentHash("golf_clubs.json")).thenReturn("abc");
+        when(clubListStateRepository.findForUpdate("golf_clubs.json")).thenReturn(Optional.of(applied("abc", 3)));
+
+        service().syncOnStartup();
+
+        verify(loader, never()).load(anyString());
+        verifyNoInteractions(courseRepository, courseCatalog);
+        verify(clubListStateRepository, never()).save(any());
+    }
+
+    @Test
+    void aChangedListIsAppliedAndRecordedUnderTheNextVersion() {
+        ClubListState state = applied("old", 3);
+        when(loader.contentHash("golf_clubs.json")).thenReturn("new");
+        when(clubListStateRepository.findForUpdate("golf_clubs.json")).thenReturn(Optional.of(state));
+        when(loader.load("golf_clubs.json")).thenReturn(List.of());
+        when(courseRepository.findAll()).thenReturn(List.of());
+
+        service().syncOnStartup();
+
+        verify(clubListStateRepository).save(state);
+        assertEquals("new", state.getContentHash());
+        assertEquals(4, state.getCatalogVersion());
+    }
+
+    @Test
+    void forceResyncReconcilesAnUnchangedList() {
+        when(loader.contentHash("golf_clubs.json")).thenReturn("abc");
+        when(clubListStateRepository.findForUpdate("golf_clubs.json")).thenReturn(Optional.of(applied("abc", 3)));
+        when(loader.load("golf_clubs.json")).thenReturn(List.of());
+        when(courseRepository.findAll()).thenReturn(List.of());
+        CourseSyncService service = service();
+        ReflectionTestUtils.setField(service, "forceResync", true);
+
+        service.syncOnStartup();
+
+        verify(loader).load("golf_clubs.json");
+        verify(clubListStateRepository).save(any());
+    }
+
+    @Test
+    void aRefusedListIsNotRecordedAsApplied() {
+        when(loader.contentHash("golf_clubs.json")).thenReturn("abc");
+        when(clubListStateRepository.findForUpdate("golf_clubs.json")).thenReturn(Optional.empty());
+        when(loader.load("golf_clubs.json")).thenThrow(new IllegalStateException("duplicate clubId in club list: x"));
+
+        service().syncOnStartup();
+
+        verify(clubListStateRepository, never()).save(any());
+    }
+
+    @Test
+    void theFirstAppliedListIsVersionOne() {
+        when(loader.contentHash("golf_clubs.json")).thenReturn("abc");
+        when(clubListStateRepository.findForUpdate("golf_clubs.json")).thenReturn(Optional.empty());
+        when(loader.load("golf_clubs.json")).thenReturn(List.of());
+        when(courseRepository.findAll()).thenReturn(List.of());
+
+        service().syncOnStartup();
+
+        ArgumentCaptor<ClubListState> saved = ArgumentCaptor.forClass(ClubListState.class);
+        verify(clubListStateRepository).save(saved.capture());
+        assertEquals(1, saved.getValue().getCatalogVersion());
+        assertEquals("abc", saved.getValue().getContentHash());
+    }
+}
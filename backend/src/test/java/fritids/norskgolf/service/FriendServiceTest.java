@@ -3,12 +3,14 @@ package fritids.norskgolf.service;
 import fritids.norskgolf.dto.FriendDto;
 import fritids.norskgolf.entities.Course;
 import fritids.norskgolf.entities.Friendship;
+import fritids.norskgolf.entities.FriendshipStatus;
 import fritids.norskgolf.entities.User;
-import fritids.norskgolf.repository.CourseRepository;
 import fritids.norskgolf.repository.FriendshipRepository;
 import fritids.norskgolf.repository.PlayedCourseRepository;
 import fritids.norskgolf.repository.RoundRepository;
 import fritids.norskgolf.repository.UserRepository;
+import fritids.norskgolf.service.catalog.CourseCatalog;
+import fritids.norskgolf.service.catalog.CourseCatalogProvider;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
@@ -26,6 +28,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
@@ -43,7 +46,7 @@ class FriendServiceTest {
     @Mock private FriendshipRepository friendshipRepository;
     @Mock private PlayedCourseRepository playedCourseRepository;
     @Mock private RoundRepository roundRepository;
-    @Mock private CourseRepository courseRepository;
+    @Mock private CourseCatalogProvider courseCatalog;
 
     @InjectMocks private FriendService friendService;
 
@@ -149,10 +152,9 @@ class FriendServiceTest {
     void searchResultCarriesFriendshipIdForOutgoingRequest() {
         User me = user(1L);
         User other = user(2L);
-        Friendship pending = new Friendship(me, other);
-        ReflectionTestUtils.setField(pending, "id", 10L);
         when(userRepository.searchUsers(eq("ola"), eq(1L), any())).thenReturn(List.of(other));
-        when(friendshipRepository.findRelationship(me, other)).thenReturn(Optional.of(pending));
+        when(friendshipRepository.findRelationships(1L, List.of(2L)))
+                .thenReturn(List.of(relationship(10L, 1L, 2L, FriendshipStatus.PENDING)));
 
         FriendDto result = friendService.searchUsers("ola", me).get(0);
 
@@ -165,7 +167,7 @@ class FriendServiceTest {
         User me = user(1L);
         User other = user(2L);
         when(userRepository.searchUsers(eq("ola"), eq(1L), any())).thenReturn(List.of(other));
-        when(friendshipRepository.findRelationship(me, other)).thenReturn(Optional.empty());
+        when(friendshipRepository.findRelationships(1L, List.of(2L))).thenReturn(List.of());
 
         FriendDto result = friendService.searchUsers("ola", me).get(0);
 
@@ -173,18 +175,61 @@ class FriendServiceTest {
         assertNull(result.getFriendshipId());
     }
 
+    @Test
+    void searchResolvesEveryRowsRelationshipInOneQuery() {
+        User me = user(1L);
+        User friend = user(2L);
+        User asker = user(3L);
+        User stranger = user(4L);
+        when(userRepository.searchUsers(eq("ola"), eq(1L), any())).thenReturn(List.of(friend, asker, stranger));
+        when(friendshipRepository.findRelationships(1L, List.of(2L, 3L, 4L))).thenReturn(List.of(
+                relationship(20L, 2L, 1L, FriendshipStatus.ACCEPTED),
+                relationship(30L, 3L, 1L, FriendshipStatus.PENDING)));
+
+        List<FriendDto> results = friendService.searchUsers("ola", me);
+
+        assertEquals(List.of("FRIENDS", "RECEIVED", "NONE"), results.stream().map(FriendDto::getStatus).toList());
+        assertEquals(30L, results.get(1).getFriendshipId());
+        verify(friendshipRepository).findRelationships(anyLong(), anyCollection());
+        verify(friendshipRepository, never()).findRelationship(any(), any());
+    }
+
+    private static FriendshipRepository.Relationship relationship(long id, long requesterId, long receiverId,
+                                                                  FriendshipStatus status) {
+        return new FriendshipRepository.Relationship() {
+            public Long getId() { return id; }
+            public Long getRequesterId() { return requesterId; }
+            public Long getReceiverId() { return receiverId; }
+            public FriendshipStatus getStatus() { return status; }
+        };
+    }
+
     // --- LEADERBOARD ---
 
+    private static PlayedCourseRepository.UserCourseId played(long userId, long courseId) {
+        return new PlayedCourseRepository.UserCourseId() {
+            public Long getUserId() { return userId; }
+            public Long getCourseId() { return courseId; }
+        };
+    }
+
+    private static RoundRepository.UserRoundCount rounds(long userId, long count) {
+        return new RoundRepository.UserRoundCount() {
+            public Long getUserId() { return userId; }
+            public long getRoundCount() { return count; }
+        };
+    }
+
     @Test
     void leaderboardCountsOnlyActiveCoursesSoAFriendsTotalMatchesTheirOwnDashboard() {
-        // Course 99 is not in findByActiveTrue: the club reconciler deactivated it.
+        // Course 99 is not in the active catalog: the club reconciler deactivated it.
         // Counting it would inflate the friend's BANER figure above what /oversikt shows.
-        when(courseRepository.findByActiveTrue()).thenReturn(List.of(course(1L, "Oslo")));
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, List.of(course(1L, "Oslo"))));
 
         User me = user(1);
         when(friendshipRepository.findAllFriends(1L)).thenReturn(List.of());
-        when(playedCourseRepository.findCourseIdsByUserId(1L)).thenReturn(List.of(1L, 99L));
-        when(roundRepository.countByUserId(1L)).thenReturn(7);
+        when(playedCourseRepository.findCourseIdsByUserIdIn(List.of(1L))).thenReturn(List.of(played(1, 1), played(1, 99)));
+        when(roundRepository.countByUserIdIn(List.of(1L))).thenReturn(List.of(rounds(1, 7)));
 
         FriendDto meRow = friendService.getLeaderboard(me).get(0);
 
@@ -197,15 +242,16 @@ class FriendServiceTest {
         // Oslo is fully played, Vestfold is not. Course 5 has a null county, mirroring
         // GolfService.getDashboardStats: it must bucket under "Unknown" as its own
         // fylke rather than being dropped or merged into another bucket.
-        when(courseRepository.findByActiveTrue()).thenReturn(List.of(
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, List.of(
                 course(1L, "Oslo"), course(2L, "Oslo"),
                 course(3L, "Vestfold"), course(4L, "Vestfold"),
-                course(5L, null)));
+                course(5L, null))));
 
         User me = user(1);
         when(friendshipRepository.findAllFriends(1L)).thenReturn(List.of());
-        when(playedCourseRepository.findCourseIdsByUserId(1L)).thenReturn(List.of(1L, 2L, 3L, 5L));
-        when(roundRepository.countByUserId(1L)).thenReturn(3);
+        when(playedCourseRepository.findCourseIdsByUserIdIn(List.of(1L))).thenReturn(List.of(
+                played(1, 1), played(1, 2), played(1, 3), played(1, 5)));
+        when(roundRepository.countByUserIdIn(List.of(1L))).thenReturn(List.of(rounds(1, 3)));
 
         FriendDto meRow = friendService.getLeaderboard(me).get(0);
 
@@ -215,18 +261,42 @@ class FriendServiceTest {
 
     @Test
     void leaderboardLoadsTheCourseListOnceRatherThanPerRow() {
-        // One query for the whole leaderboard, not one per friend.
-        when(courseRepository.findByActiveTrue()).thenReturn(List.of(course(1L, "Oslo")));
+        // One catalog read for the whole leaderboard, not one per friend.
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, List.of(course(1L, "Oslo"))));
 
         User me = user(1);
         User friend = user(2);
         Friendship f = new Friendship(me, friend);
         ReflectionTestUtils.setField(f, "id", 10L);
         when(friendshipRepository.findAllFriends(1L)).thenReturn(List.of(f));
-        when(playedCourseRepository.findCourseIdsByUserId(anyLong())).thenReturn(List.of(1L));
-        when(roundRepository.countByUserId(anyLong())).thenReturn(1);
+        when(playedCourseRepository.findCourseIdsByUserIdIn(any())).thenReturn(List.of(played(1, 1), played(2, 1)));
+        when(roundRepository.countByUserIdIn(any())).thenReturn(List.of(rounds(1, 1), rounds(2, 1)));
 
         assertEquals(2, friendService.getLeaderboard(me).size());
-        verify(courseRepository, times(1)).findByActiveTrue();
+        verify(courseCatalog, times(1)).current();
+    }
+
+    @Test
+    void leaderboardFetchesEveryRowsNumbersInOneQueryEach() {
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, List.of(course(1L, "Oslo"), course(2L, "Oslo"))));
+
+        User me = user(1);
+        Friendship first = new Friendship(me, user(2));
+        Friendship second = new Friendship(user(3), me);
+        when(friendshipRepository.findAllFriends(1L)).thenReturn(List.of(first, second));
+        when(playedCourseRepository.findCourseIdsByUserIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                played(2, 1), played(2, 2), played(3, 1)));
+        // User 1 has logged nothing: absent from the grouped count, and must read as zero.
+        when(roundRepository.countByUserIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(rounds(2, 12), rounds(3, 4)));
+
+        List<FriendDto> leaderboard = friendService.getLeaderboard(me);
+
+        assertEquals(List.of("public-2", "public-3", "public-1"), leaderboard.stream().map(FriendDto::getId).toList());
+        assertEquals(2, leaderboard.get(0).getTotalCourses());
+        assertEquals(12, leaderboard.get(0).getTotalRounds());
+        assertEquals(1, leaderboard.get(0).getFylkerComplete());
+        assertEquals(0, leaderboard.get(2).getTotalRounds());
+        verify(playedCourseRepository, never()).findCourseIdsByUserId(anyLong());
+        verify(roundRepository, never()).countByUserId(anyLong());
     }
 }
@@ -1,30 +1,49 @@
 package fritids.norskgolf.service;
 
+import fritids.norskgolf.dto.CourseChangesDto;
+import fritids.norskgolf.dto.CourseDto;
+import fritids.norskgolf.dto.CourseViewportDto;
 import fritids.norskgolf.dto.DashboardStats;
+import fritids.norskgolf.dto.NearbyCourseDto;
 import fritids.norskgolf.entities.Course;
-import fritids.norskgolf.entities.Round;
 import fritids.norskgolf.entities.User;
-import fritids.norskgolf.repository.CourseRepository;
+import fritids.norskgolf.entities.UserStats;
+import fritids.norskgolf.repository.CourseChangeRepository;
 import fritids.norskgolf.repository.PlayedCourseRepository;
 import fritids.norskgolf.repository.RoundRepository;
+import fritids.norskgolf.repository.UserStatsRepository;
+import fritids.norskgolf.service.catalog.CourseCatalog;
+import fritids.norskgolf.service.catalog.CourseCatalogProvider;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class GolfServiceActiveCoursesTest {
 
-    @Mock private CourseRepository courseRepository;
     @Mock private PlayedCourseRepository playedCourseRepository;
     @Mock private RoundRepository roundRepository;
+    @Mock private CourseCatalogProvider courseCatalog;
+    @Mock private CourseChangeRepository courseChangeRepository;
+    @Mock private UserStatsRepository userStatsRepository;
     @InjectMocks private GolfService golfService;
 
     @Test
@@ -33,7 +52,7 @@ class GolfServiceActiveCoursesTest {
         active.setName("Miklagard Golfklubb");
         active.setExternalId("miklagard-gk");
         active.setActive(true);
-        when(courseRepository.findByActiveTrue()).thenReturn(List.of(active));
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, List.of(active)));
 
         User user = new User();
         user.setId(1L);
@@ -47,12 +66,13 @@ class GolfServiceActiveCoursesTest {
         // The user has played three courses, two of which the club-list reconciler deactivated.
         // Counting all three against an active-only denominator gave "3 av 2" and 150%.
         Course active = course(1L, "Miklagard Golfklubb", "Akershus");
-        when(courseRepository.findByActiveTrue()).thenReturn(List.of(active));
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, List.of(active)));
 
         User user = new User();
         user.setId(1L);
         when(playedCourseRepository.findCourseIdsByUserId(1L)).thenReturn(List.of(1L, 2L, 3L));
-        when(roundRepository.findByUserIdOrderByDateDescIdDesc(1L)).thenReturn(List.of());
+        when(roundRepository.findSummariesByUserId(1L, Limit.of(5))).thenReturn(List.of());
+        when(userStatsRepository.findById(1L)).thenReturn(Optional.of(new UserStats(1L, 0)));
 
         DashboardStats stats = golfService.getDashboardStats(user);
 
@@ -66,14 +86,14 @@ class GolfServiceActiveCoursesTest {
         // recentRounds is capped at 5 for display, so the frontend cannot derive a
         // lifetime total from it. roundCount carries the real number.
         Course active = course(1L, "Miklagard Golfklubb", "Akershus");
-        when(courseRepository.findByActiveTrue()).thenReturn(List.of(active));
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, List.of(active)));
 
         User user = new User();
         user.setId(1L);
         when(playedCourseRepository.findCourseIdsByUserId(1L)).thenReturn(List.of(1L));
-        when(roundRepository.findByUserIdOrderByDateDescIdDesc(1L)).thenReturn(List.of(
-                round(active), round(active), round(active), round(active),
-                round(active), round(active), round(active)));
+        when(roundRepository.findSummariesByUserId(1L, Limit.of(5))).thenReturn(List.of(
+                summary(), summary(), summary(), summary(), summary()));
+        when(userStatsRepository.findById(1L)).thenReturn(Optional.of(new UserStats(1L, 7)));
 
         DashboardStats stats = golfService.getDashboardStats(user);
 
@@ -81,13 +101,142 @@ class GolfServiceActiveCoursesTest {
         assertEquals(5, stats.getRecentRounds().size());
     }
 
-    private static Round round(Course course) {
-        Round r = new Round();
-        r.setId(1L);
-        r.setCourse(course);
-        r.setDate(LocalDate.of(2026, 6, 1));
-        r.setScore(84);
-        return r;
+    @Test
+    void aUserWithoutAStatsRowIsCountedOnceAndTheRowStored() {
+        // Users from before user_stats existed: the first overview creates the row from a count
+        // in the database, and logRound/deleteRound maintain it from there.
+        Course active = course(1L, "Miklagard Golfklubb", "Akershus");
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, List.of(active)));
+
+        User user = new User();
+        user.setId(1L);
+        when(playedCourseRepository.findCourseIdsByUserId(1L)).thenReturn(List.of(1L));
+        when(roundRepository.findSummariesByUserId(1L, Limit.of(5))).thenReturn(List.of(summary()));
+        when(userStatsRepository.findById(1L)).thenReturn(Optional.empty(), Optional.of(new UserStats(1L, 12)));
+
+        DashboardStats stats = golfService.getDashboardStats(user);
+
+        assertEquals(12L, stats.getRoundCount());
+        verify(userStatsRepository).createIfAbsent(1L);
+        verify(roundRepository, never()).countByUserId(any());
+    }
+
+    @Test
+    void nearbyListsTheClosestCoursesWithTheirDistanceAndCanSkipPlayedOnes() {
+        Course oslo = placed(course(1L, "Oslo Golfklubb", "Oslo"), 59.95, 10.70);
+        Course bogstad = placed(course(2L, "Bogstad Golfklubb", "Oslo"), 59.96, 10.64);
+        Course bergen = placed(course(3L, "Bergen Golfklubb", "Vestland"), 60.39, 5.32);
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, List.of(oslo, bogstad, bergen)));
+
+        User user = new User();
+        user.setId(1L);
+        when(playedCourseRepository.findCourseIdsByUserId(1L)).thenReturn(List.of(1L));
+
+        List<NearbyCourseDto> all = golfService.getNearbyCourses(user, 59.95, 10.71, 2, false);
+        assertEquals(List.of(1L, 2L), all.stream().map(NearbyCourseDto::id).toList());
+        assertTrue(all.get(0).played());
+        assertTrue(all.get(0).distanceKm() < all.get(1).distanceKm());
+
+        List<NearbyCourseDto> unplayed = golfService.getNearbyCourses(user, 59.95, 10.71, 2, true);
+        assertEquals(List.of(2L, 3L), unplayed.stream().map(NearbyCourseDto::id).toList());
+    }
+
+    @Test
+    void nearbyRejectsImpossibleCoordinatesAndOversizedK() {
+        ResponseStatusException badLat = assertThrows(ResponseStatusException.class,
+                () -> golfService.getNearbyCourses(null, 91, 10, null, false));
+        assertEquals(HttpStatus.BAD_REQUEST, badLat.getStatusCode());
+
+        ResponseStatusException badK = assertThrows(ResponseStatusException.class,
+                () -> golfService.getNearbyCourses(null, 60, 10, 51, false));
+        assertEquals(HttpStatus.BAD_REQUEST, badK.getStatusCode());
+    }
+
+    @Test
+    void aZoomedOutViewportGetsClustersWithPlayedCountsAndLoneCoursesAsThemselves() {
+        Course oslo = placed(course(1L, "Oslo Golfklubb", "Oslo"), 59.95, 10.70);
+        Course bogstad = placed(course(2L, "Bogstad Golfklubb", "Oslo"), 59.96, 10.64);
+        Course bergen = placed(course(3L, "Bergen Golfklubb", "Vestland"), 60.39, 5.32);
+        Course tromso = placed(course(4L, "Tromsø Golfklubb", "Troms"), 69.65, 18.96);
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, List.of(oslo, bogstad, bergen, tromso)));
+
+        User user = new User();
+        user.setId(1L);
+        when(playedCourseRepository.findCourseIdsByUserId(1L)).thenReturn(List.of(2L, 3L));
+
+        // Southern Norway only: Tromsø is off screen.
+        CourseViewportDto view = golfService.getCoursesInView(user, "4,57,12,62", 5);
+
+        assertEquals(1, view.clusters().size());
+        assertEquals(2, view.clusters().get(0).count());
+        assertEquals(1, view.clusters().get(0).playedCount());
+        assertEquals(List.of(3L), view.courses().stream().map(CourseDto::id).toList());
+        assertTrue(view.courses().get(0).played());
+    }
+
+    @Test
+    void aZoomedInViewportGetsEveryCourseInsideIt() {
+        Course oslo = placed(course(1L, "Oslo Golfklubb", "Oslo"), 59.95, 10.70);
+        Course bergen = placed(course(3L, "Bergen Golfklubb", "Vestland"), 60.39, 5.32);
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, List.of(oslo, bergen)));
+
+        CourseViewportDto view = golfService.getCoursesInView(null, "10.5,59.8,10.9,60.1", 12);
+
+        assertEquals(List.of(1L), view.courses().stream().map(CourseDto::id).toList());
+        assertTrue(view.clusters().isEmpty());
+    }
+
+    @Test
+    void rejectsAMalformedBbox() {
+        for (String bad : new String[]{"1,2,3", "a,b,c,d", "12,57,4,62", "4,57,12,95"}) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> golfService.getCoursesInView(null, bad, 5), bad);
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+
+    @Test
+    void changesSinceAVersionListOnlyTheChangedAndRemovedCourses() {
+        Course oslo = course(1L, "Oslo Golfklubb", "Oslo");
+        Course renamed = course(2L, "Bogstad Golfklubb", "Oslo");
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, 40, List.of(oslo, renamed)));
+        when(courseChangeRepository.countBetween(30, 40)).thenReturn(3L);
+        // 2 was renamed, 9 deactivated since version 30
+        when(courseChangeRepository.findCourseIdsBetween(30, 40)).thenReturn(List.of(9L, 2L));
+
+        CourseChangesDto changes = golfService.getCourseChanges(null, 30L);
+
+        assertEquals(40, changes.version());
+        assertFalse(changes.snapshot());
+        assertEquals(List.of(2L), changes.courses().stream().map(CourseDto::id).toList());
+        assertEquals(List.of(9L), changes.removed());
+    }
+
+    @Test
+    void aClientWithoutAVersionOrTooFarBehindGetsTheWholeList() {
+        when(courseCatalog.current()).thenReturn(CourseCatalog.of(1, 4000, List.of(
+                course(1L, "Oslo Golfklubb", "Oslo"), course(2L, "Bogstad Golfklubb", "Oslo"))));
+        when(courseChangeRepository.countBetween(1, 4000)).thenReturn(3999L);
+
+        CourseChangesDto fresh = golfService.getCourseChanges(null, null);
+        CourseChangesDto behind = golfService.getCourseChanges(null, 1L);
+        CourseChangesDto ahead = golfService.getCourseChanges(null, 5000L);
+
+        for (CourseChangesDto changes : List.of(fresh, behind, ahead)) {
+            assertTrue(changes.snapshot());
+            assertEquals(2, changes.courses().size());
+            assertEquals(4000, changes.version());
+        }
+    }
+
+    private static Course placed(Course c, double lat, double lon) {
+        c.setLatitude(lat);
+        c.setLongitude(lon);
+        return c;
+    }
+
+    private static DashboardStats.RoundSummary summary() {
+        return new DashboardStats.RoundSummary(1L, "Miklagard Golfklubb", LocalDate.of(2026, 6, 1), 84);
     }
 
     private static Course course(Long id, String name, String county) {
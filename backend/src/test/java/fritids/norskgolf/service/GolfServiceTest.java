@@ -1,5 +1,7 @@
 package fritids.norskgolf.service;
 
+import fritids.norskgolf.dto.CourseDto;
+import fritids.norskgolf.dto.PlayedCoursesDelta;
 import fritids.norskgolf.dto.RoundRequest;
 import fritids.norskgolf.entities.Course;
 import fritids.norskgolf.entities.Round;
@@ -7,8 +9,10 @@ import fritids.norskgolf.entities.User;
 import fritids.norskgolf.repository.CourseRepository;
 import fritids.norskgolf.repository.PlayedCourseRepository;
 import fritids.norskgolf.repository.RoundRepository;
+import fritids.norskgolf.repository.UserStatsRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -16,11 +20,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +36,7 @@ class GolfServiceTest {
     @Mock private CourseRepository courseRepository;
     @Mock private PlayedCourseRepository playedCourseRepository;
     @Mock private RoundRepository roundRepository;
+    @Mock private UserStatsRepository userStatsRepository;
 
     @InjectMocks private GolfService golfService;
 
@@ -51,7 +59,8 @@ class GolfServiceTest {
                 () -> golfService.logRound(user(1L), request));
         assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
         verify(roundRepository, never()).save(any());
-        verify(playedCourseRepository, never()).save(any());
+        verify(playedCourseRepository, never()).insertIfAbsent(anyLong(), anyLong());
+        verify(userStatsRepository, never()).addRounds(anyLong(), anyLong());
     }
 
     @Test
@@ -83,11 +92,31 @@ class GolfServiceTest {
         course.setName("Meland");
         when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
         when(roundRepository.save(any(Round.class))).thenAnswer(i -> i.getArgument(0));
-        when(playedCourseRepository.existsByUserIdAndCourseId(1L, 1L)).thenReturn(true);
 
         golfService.logRound(user(1L), request("2024-05-01", 85));
 
         verify(roundRepository).save(any(Round.class));
+        verify(playedCourseRepository).insertIfAbsent(1L, 1L);
+        InOrder order = inOrder(userStatsRepository, roundRepository);
+        order.verify(userStatsRepository).createIfAbsent(1L);
+        order.verify(roundRepository).save(any(Round.class));
+        order.verify(userStatsRepository).addRounds(1L, 1);
+    }
+
+    @Test
+    void deleteRoundTakesItOffTheRoundCount() {
+        Course course = new Course();
+        course.setId(1L);
+        Round round = new Round();
+        round.setUser(user(1L));
+        round.setCourse(course);
+        when(roundRepository.findById(42L)).thenReturn(Optional.of(round));
+        when(roundRepository.existsByUserIdAndCourseId(1L, 1L)).thenReturn(true);
+
+        golfService.deleteRound(42L, user(1L));
+
+        verify(roundRepository).delete(round);
+        verify(userStatsRepository).addRounds(1L, -1);
     }
 
     @Test
@@ -103,5 +132,53 @@ class GolfServiceTest {
         verify(roundRepository, never()).delete(any());
         verify(playedCourseRepository, never()).delete(any());
         verify(roundRepository, never()).existsByUserIdAndCourseId(anyLong(), anyLong());
+        verify(userStatsRepository, never()).addRounds(anyLong(), anyLong());
+    }
+
+    @Test
+    void roundPageRejectsForgedCursorsAndOutOfRangeLimits() {
+        for (String cursor : new String[]{"not base64!", "bm9jb2xvbg", GolfService.encodeCursor("yesterday", 3L)}) {
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> golfService.getRoundPage(user(1L), cursor, null, null, null, null));
+            assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode(), cursor);
+        }
+        assertThrows(ResponseStatusException.class,
+                () -> golfService.getRoundPage(user(1L), null, 0, null, null, null));
+        assertThrows(ResponseStatusException.class,
+                () -> golfService.getRoundPage(user(1L), null, GolfService.ROUND_PAGE_MAX + 1, null, null, null));
+        assertThrows(ResponseStatusException.class,
+                () -> golfService.getRoundPage(user(1L), null, null, null, "2024-05-02", "2024-05-01"));
+        verifyNoInteractions(roundRepository);
+    }
+
+    @Test
+    void markingManyPlayedReturnsOnlyWhatChanged() {
+        Course oslo = new Course();
+        oslo.setId(1L);
+        oslo.setName("Oslo Golfklubb");
+        oslo.setExternalId("oslo-gk");
+        Course bergen = new Course();
+        bergen.setId(2L);
+        bergen.setName("Bergen Golfklubb");
+        bergen.setExternalId("bergen-gk");
+        when(courseRepository.findByExternalIdIn(anyCollection())).thenReturn(List.of(oslo, bergen));
+        // Oslo was already played, so only Bergen comes back as inserted.
+        when(playedCourseRepository.insertIfAbsent(eq(1L), anyCollection())).thenReturn(List.of(2L));
+
+        PlayedCoursesDelta delta = golfService.markCoursesPlayed(1L, List.of("oslo-gk", "bergen-gk", "nowhere-gk", "bergen-gk"));
+
+        assertEquals(List.of("bergen-gk"), delta.added().stream().map(CourseDto::externalId).toList());
+        assertTrue(delta.added().get(0).played());
+        assertEquals(List.of("nowhere-gk"), delta.unknown());
+        verify(playedCourseRepository, never()).findByUserIdWithCourse(anyLong());
+    }
+
+    @Test
+    void markingManyPlayedRejectsEmptyAndOversizedRequests() {
+        assertThrows(ResponseStatusException.class, () -> golfService.markCoursesPlayed(1L, List.of()));
+        List<String> tooMany = java.util.stream.IntStream.rangeClosed(0, GolfService.MARK_PLAYED_MAX)
+                .mapToObj(i -> "club-" + i).toList();
+        assertThrows(ResponseStatusException.class, () -> golfService.markCoursesPlayed(1L, tooMany));
+        verifyNoInteractions(courseRepository, playedCourseRepository);
     }
 }
@@ -0,0 +1,110 @@
+package fritids.norskgolf.service;
+
+import fritids.norskgolf.dto.FriendDto;
+import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.entities.Friendship;
+import fritids.norskgolf.entities.FriendshipStatus;
+import fritids.norskgolf.entities.PlayedCourse;
+import fritids.norskgolf.entities.Round;
+import fritids.norskgolf.entities.User;
+import fritids.norskgolf.repository.CourseRepository;
+import fritids.norskgolf.repository.FriendshipRepository;
+import fritids.norskgolf.repository.PlayedCourseRepository;
+import fritids.norskgolf.repository.RoundRepository;
+import fritids.norskgolf.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark for the batched leaderboard: the statement count for /api/friends must not grow with
+ * the friend list. Before batching, 150 friends cost ~300 queries (a played-ids query and a
+ * round count per row) plus a user select per friend from the EAGER friendship sides.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:leaderboard;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // these tests build on the synced course table, so sync before the context is handed over
+        "app.clubs.background-sync=false"
+})
+class LeaderboardQueryCountTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardQueryCountTest.class);
+
+    @Autowired private FriendService friendService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private FriendshipRepository friendshipRepository;
+    @Autowired private PlayedCourseRepository playedCourseRepository;
+    @Autowired private RoundRepository roundRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private int userSeq;
+
+    private User newUser() {
+        int n = userSeq++;
+        User u = new User();
+        u.setUsername("leaderboard-" + n + "@test.local");
+        u.setEmail("leaderboard-" + n + "@test.local");
+        u.setProviderId("leaderboard-" + n);
+        u.setFirstName("Golfer");
+        u.setLastName(String.valueOf(n));
+        return userRepository.save(u);
+    }
+
+    private void addFriends(User me, int count, Course course) {
+        for (int i = 0; i < count; i++) {
+            User friend = newUser();
+            Friendship f = new Friendship(me, friend);
+            f.setStatus(FriendshipStatus.ACCEPTED);
+            friendshipRepository.save(f);
+            playedCourseRepository.save(new PlayedCourse(friend, course));
+            Round round = new Round();
+            round.setUser(friend);
+            round.setCourse(course);
+            round.setDate(LocalDate.of(2025, 6, 1));
+            round.setScore(90);
+            roundRepository.save(round);
+        }
+    }
+
+    private long statementsFor(User me, int expectedRows) {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        long start = System.nanoTime();
+        List<FriendDto> leaderboard = friendService.getLeaderboard(me);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(expectedRows, leaderboard.size());
+        log.info("Leaderboard with {} rows: {} statements, {} ms", expectedRows, stats.getPrepareStatementCount(), millis);
+        return stats.getPrepareStatementCount();
+    }
+
+    @Test
+    void statementCountStaysFlatAsTheFriendListGrows() {
+        Course course = courseRepository.findByActiveTrue().get(0);
+        User me = newUser();
+
+        addFriends(me, 10, course);
+        friendService.getLeaderboard(me); // warm the course catalog so it isn't counted below
+        long small = statementsFor(me, 11);
+
+        addFriends(me, 140, course);
+        long large = statementsFor(me, 151);
+
+        assertEquals(small, large, "the leaderboard must not issue a query per friend");
+        assertEquals(3, large, "friendships, played ids and round counts — one statement each");
+    }
+}
@@ -0,0 +1,109 @@
+package fritids.norskgolf.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.entities.Round;
+import fritids.norskgolf.entities.User;
+import fritids.norskgolf.repository.CourseRepository;
+import fritids.norskgolf.repository.RoundRepository;
+import fritids.norskgolf.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The export streams off a database cursor inside its own transaction, so these call it the way
+ * the response thread does: from outside any transaction, against a real database.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:roundexport;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.clubs.background-sync=false"
+})
+class RoundExportServiceTest {
+
+    @Autowired private RoundExportService roundExportService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private RoundRepository roundRepository;
+
+    private User seed(String name, int rounds) {
+        User user = new User();
+        user.setUsername(name + "@test.local");
+        user.setEmail(name + "@test.local");
+        user.setProviderId(name);
+        user = userRepository.save(user);
+
+        Course course = new Course();
+        course.setName("Golfparken \"Nord\", Tromsø");
+        course.setExternalId("export-" + name);
+        course.setActive(true);
+        course = courseRepository.save(course);
+
+        List<Round> batch = new ArrayList<>();
+        for (int i = 0; i < rounds; i++) {
+            Round round = new Round();
+            round.setUser(user);
+            round.setCourse(course);
+            round.setDate(LocalDate.of(2020, 1, 1).plusDays(i));
+            round.setScore(80 + i % 30);
+            batch.add(round);
+        }
+        roundRepository.saveAll(batch);
+        return user;
+    }
+
+    private String export(User user, RoundExportService.Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        roundExportService.export(user, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void csvHasAHeaderAndOneQuotedRowPerRoundNewestFirst() throws Exception {
+        User user = seed("export-csv", 1200);
+
+        String[] lines = export(user, RoundExportService.Format.CSV).split("\n");
+
+        assertEquals(1201, lines.length);
+        assertEquals("id,date,courseId,courseName,score", lines[0]);
+        assertTrue(lines[1].contains(",2023-04-14,"), lines[1]);
+        assertTrue(lines[1].contains(",\"Golfparken \"\"Nord\"\", Tromsø\","), lines[1]);
+    }
+
+    @Test
+    void ndjsonIsOneRoundObjectPerLine() throws Exception {
+        User user = seed("export-ndjson", 25);
+
+        String body = export(user, RoundExportService.Format.NDJSON);
+        String[] lines = body.split("\n");
+
+        assertTrue(body.endsWith("\n"));
+        assertEquals(25, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals("2020-01-25", first.get("date").asText());
+        assertEquals("Golfparken \"Nord\", Tromsø", first.get("courseName").asText());
+    }
+
+    @Test
+    void unknownFormatsAreRejected() {
+        assertEquals(RoundExportService.Format.CSV, RoundExportService.Format.parse(null));
+        assertEquals(RoundExportService.Format.NDJSON, RoundExportService.Format.parse("ndjson"));
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> RoundExportService.Format.parse("xlsx"));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+}
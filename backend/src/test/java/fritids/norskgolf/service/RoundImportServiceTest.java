@@ -0,0 +1,152 @@
+package fritids.norskgolf.service;
+
+import fritids.norskgolf.dto.RoundImportResult;
+import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.entities.User;
+import fritids.norskgolf.repository.CourseRepository;
+import fritids.norskgolf.repository.PlayedCourseRepository;
+import fritids.norskgolf.repository.RoundRepository;
+import fritids.norskgolf.repository.UserRepository;
+import fritids.norskgolf.repository.UserStatsRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:roundimport;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.clubs.background-sync=false"
+})
+class RoundImportServiceTest {
+
+    @Autowired private RoundImportService roundImportService;
+    @Autowired private RoundExportService roundExportService;
+    @Autowired private GolfService golfService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private RoundRepository roundRepository;
+    @Autowired private PlayedCourseRepository playedCourseRepository;
+    @Autowired private UserStatsRepository userStatsRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private User user(String name) {
+        User user = new User();
+        user.setUsername(name + "@test.local");
+        user.setEmail(name + "@test.local");
+        user.setProviderId(name);
+        return userRepository.save(user);
+    }
+
+    private RoundImportResult importCsv(User user, String csv) {
+        return roundImportService.importRounds(user, RoundImportService.Format.CSV, null,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private RoundImportResult importJson(User user, String json) {
+        return roundImportService.importRounds(user, RoundImportService.Format.JSON, null,
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void csvImportsTheGoodRowsAndReportsTheRestByLine() {
+        User user = user("import-csv");
+        golfService.getDashboardStats(user); // create the stats row, so the import has to keep it current
+        Course course = courseRepository.findByExternalId("oslo-gk").orElseThrow();
+
+        String tomorrow = LocalDate.now().plusDays(1).toString();
+        RoundImportResult result = importCsv(user, String.join("\n",
+                "Date,Score,CourseName,Notes",
+                "2023-05-01,88,Oslo GK,\"windy, wet\"",
+                "2023-05-02,12,Oslo GK,",
+                "2023-05-03,90,Ingensteds Golfklubb,",
+                "",
+                tomorrow + ",90,Oslo Golfklubb,",
+                "2023-05-04,eighty,Oslo Golfklubb,",
+                "2023-05-05,85,\"Oslo Golfklubb\",",
+                ""));
+
+        assertEquals(2, result.imported());
+        assertEquals(4, result.failed());
+        assertEquals(List.of(3, 4, 6, 7), result.errors().stream().map(RoundImportResult.RowError::row).toList());
+        assertTrue(result.errors().get(1).message().contains("Ingensteds"), result.errors().get(1).message());
+
+        assertEquals(2, roundRepository.countByUserId(user.getId()));
+        assertEquals(List.of(course.getId()), playedCourseRepository.findCourseIdsByUserId(user.getId()));
+        assertEquals(2, userStatsRepository.findById(user.getId()).orElseThrow().getRoundCount());
+    }
+
+    @Test
+    void semicolonSheetsFromANorwegianExcelAreRead() {
+        User user = user("import-semicolon");
+        RoundImportResult result = importCsv(user, "\uFEFFdato;score;date;courseExternalId\r\nx;84;2022-08-01;bergen-gk\r\n");
+
+        assertEquals(1, result.imported(), result.errors().toString());
+        assertEquals(0, result.failed());
+    }
+
+    @Test
+    void aCsvWithoutAHeaderIsRejectedOutright() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> importCsv(user("import-headerless"), "2023-05-01,88,oslo-gk\n"));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+
+    @Test
+    void jsonArrayRowsAreNumberedByItemAndABrokenTailKeepsWhatCameBefore() {
+        User user = user("import-json");
+        Long id = courseRepository.findByExternalId("bergen-gk").orElseThrow().getId();
+
+        RoundImportResult result = importJson(user, "[" +
+                "{\"courseId\": " + id + ", \"date\": \"2021-06-01\", \"score\": 79}," +
+                "{\"courseExternalId\": \"bergen-gk\", \"date\": \"2021-06-02\", \"score\": 300}," +
+                "{\"courseId\": " + id + ", \"date\": \"2021-06-03\", \"score\": \"81\"}," +
+                "{\"courseId\": " + id + ", \"date\": ");
+
+        assertEquals(2, result.imported());
+        assertEquals(2, result.failed());
+        assertEquals(2, result.errors().get(0).row());
+        assertTrue(result.errors().get(1).message().startsWith("Could not read the upload"), result.errors().get(1).message());
+    }
+
+    @Test
+    void anExportImportsBackIntoAnotherAccountInBatchedChunks() throws Exception {
+        User from = user("import-source");
+        Course course = courseRepository.findByExternalId("oslo-gk").orElseThrow();
+        StringBuilder csv = new StringBuilder("date,score,courseId\n");
+        for (int i = 0; i < 1200; i++) {
+            csv.append(LocalDate.of(2015, 1, 1).plusDays(i)).append(',').append(80 + i % 20).append(',').append(course.getId()).append('\n');
+        }
+        assertEquals(1200, importCsv(from, csv.toString()).imported());
+
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        roundExportService.export(from, RoundExportService.Format.NDJSON, exported);
+
+        User to = user("import-target");
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        RoundImportResult result = importJson(to, exported.toString(StandardCharsets.UTF_8));
+
+        assertEquals(1200, result.imported(), result.errors().toString());
+        assertEquals(golfService.getRoundsForUser(from).stream().map(r -> r.getDate() + "/" + r.getScore()).toList(),
+                golfService.getRoundsForUser(to).stream().map(r -> r.getDate() + "/" + r.getScore()).toList());
+        // Three chunks of at most 500; each is a handful of statements, not one per round.
+        assertEquals(3, stats.getTransactionCount());
+        assertTrue(stats.getPrepareStatementCount() < 120, stats.getPrepareStatementCount() + " statements");
+    }
+}
@@ -0,0 +1,128 @@
+package fritids.norskgolf.service;
+
+import fritids.norskgolf.dto.RoundDto;
+import fritids.norskgolf.dto.RoundPage;
+import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.entities.Round;
+import fritids.norskgolf.entities.User;
+import fritids.norskgolf.repository.CourseRepository;
+import fritids.norskgolf.repository.RoundRepository;
+import fritids.norskgolf.repository.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Walks the keyset-paged round list against a real database. Many rounds share a date, so a
+ * cursor that only compared dates would skip or repeat rows at every page boundary.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:roundpages;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.clubs.background-sync=false"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS) // one seeded history, read by every test
+class RoundPageTest {
+
+    @Autowired private GolfService golfService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private RoundRepository roundRepository;
+
+    private User user;
+    private Course home;
+    private Course away;
+
+    @BeforeAll
+    void seed() {
+        user = new User();
+        user.setUsername("round-pages@test.local");
+        user.setEmail("round-pages@test.local");
+        user.setProviderId("round-pages");
+        user = userRepository.save(user);
+
+        List<Course> courses = courseRepository.findByActiveTrue();
+        home = courses.get(0);
+        away = courses.get(1);
+        List<Round> rounds = new ArrayList<>();
+        for (int i = 0; i < 130; i++) {
+            Round round = new Round();
+            round.setUser(user);
+            round.setCourse(i % 3 == 0 ? away : home);
+            round.setDate(LocalDate.of(2024, 4, 1).plusDays(i / 4)); // four rounds a day
+            round.setScore(80 + i % 20);
+            rounds.add(round);
+        }
+        roundRepository.saveAll(rounds);
+    }
+
+    @Test
+    void pagingVisitsEveryRoundOnceInListOrder() {
+        List<RoundDto> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            RoundPage page = golfService.getRoundPage(user, cursor, 25, null, null, null);
+            walked.addAll(page.rounds());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(6, pages);
+        assertEquals(golfService.getRoundsForUser(user).stream().map(RoundDto::getId).toList(),
+                walked.stream().map(RoundDto::getId).toList());
+    }
+
+    @Test
+    void filtersByCourseAndDateRange() {
+        RoundPage page = golfService.getRoundPage(user, null, 200, away.getId(), "2024-04-10", "2024-04-20");
+
+        assertFalse(page.rounds().isEmpty());
+        assertNull(page.nextCursor());
+        assertTrue(page.rounds().stream().allMatch(r -> r.getCourseId().equals(away.getId())));
+        assertTrue(page.rounds().stream().allMatch(r -> r.getDate().compareTo("2024-04-10") >= 0
+                && r.getDate().compareTo("2024-04-20") <= 0));
+        long expected = golfService.getRoundsForUser(user).stream()
+                .filter(r -> r.getCourseId().equals(away.getId()))
+                .filter(r -> r.getDate().compareTo("2024-04-10") >= 0 && r.getDate().compareTo("2024-04-20") <= 0)
+                .count();
+        assertEquals(expected, page.rounds().size());
+    }
+
+    @Test
+    void pagingAFilteredListVisitsEveryMatchOnce() {
+        // Cursor and filters together: the combination the conditionally built query has to get right.
+        List<RoundDto> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            RoundPage page = golfService.getRoundPage(user, cursor, 7, home.getId(), "2024-04-05", null);
+            walked.addAll(page.rounds());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        List<Long> expected = golfService.getRoundsForUser(user).stream()
+                .filter(r -> r.getCourseId().equals(home.getId()))
+                .filter(r -> r.getDate().compareTo("2024-04-05") >= 0)
+                .map(RoundDto::getId)
+                .toList();
+        assertTrue(expected.size() > 7 * 3, "several pages");
+        assertEquals(expected, walked.stream().map(RoundDto::getId).toList());
+    }
+
+    @Test
+    void aFullLastPageHasNoCursor() {
+        RoundPage page = golfService.getRoundPage(user, null, 130, null, null, null);
+        assertEquals(130, page.rounds().size());
+        assertNull(page.nextCursor(), "no empty page to fetch after the last row");
+    }
+}
@@ -0,0 +1,98 @@
+package fritids.norskgolf.service;
+
+import fritids.norskgolf.dto.DashboardStats;
+import fritids.norskgolf.dto.RoundDto;
+import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.entities.Round;
+import fritids.norskgolf.entities.User;
+import fritids.norskgolf.repository.CourseRepository;
+import fritids.norskgolf.repository.RoundRepository;
+import fritids.norskgolf.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark for the round lists: a user with 500 rounds over 50 courses. With EAGER Round.course
+ * and Round.user, the entity query was followed by a select per distinct course and user; the
+ * DTO projections must answer each list in a single statement.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:roundqueries;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // these tests build on the synced course table, so sync before the context is handed over
+        "app.clubs.background-sync=false"
+})
+class RoundQueryCountTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RoundQueryCountTest.class);
+
+    @Autowired private GolfService golfService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private CourseRepository courseRepository;
+    @Autowired private RoundRepository roundRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private User seed(int rounds, int courses) {
+        User user = new User();
+        user.setUsername("round-queries@test.local");
+        user.setEmail("round-queries@test.local");
+        user.setProviderId("round-queries");
+        user = userRepository.save(user);
+
+        List<Course> played = courseRepository.findByActiveTrue().subList(0, courses);
+        List<Round> batch = new ArrayList<>();
+        for (int i = 0; i < rounds; i++) {
+            Round round = new Round();
+            round.setUser(user);
+            round.setCourse(played.get(i % courses));
+            round.setDate(LocalDate.of(2020, 1, 1).plusDays(i));
+            round.setScore(70 + i % 40);
+            batch.add(round);
+        }
+        roundRepository.saveAll(batch);
+        return user;
+    }
+
+    private Statistics statistics() {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        return stats;
+    }
+
+    @Test
+    void roundListsAreOneStatementRegardlessOfHistory() {
+        User user = seed(500, 50);
+        golfService.getDashboardStats(user); // warm the catalog and create the user_stats row
+
+        Statistics stats = statistics();
+        List<RoundDto> rounds = golfService.getRoundsForUser(user);
+        long listStatements = stats.getPrepareStatementCount();
+        assertEquals(500, rounds.size());
+        assertEquals(LocalDate.of(2020, 1, 1).plusDays(499).toString(), rounds.get(0).getDate());
+        assertEquals(1, listStatements, "the round list must not select courses or users one by one");
+
+        stats = statistics();
+        DashboardStats overview = golfService.getDashboardStats(user);
+        long overviewStatements = stats.getPrepareStatementCount();
+        assertEquals(5, overview.getRecentRounds().size());
+        assertEquals(500, overview.getRoundCount());
+        assertEquals(3, overviewStatements, "played ids, the stats row and the five recent rounds");
+
+        log.info("500 rounds over 50 courses: round list {} statement(s), overview {}", listStatements, overviewStatements);
+    }
+}
@@ -0,0 +1,143 @@
+package fritids.norskgolf.service;
+
+import fritids.norskgolf.entities.User;
+import fritids.norskgolf.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock private UserRepository userRepository;
+    @InjectMocks private UserService userService;
+
+    private static final Principal GOOGLE_SUB = () -> "google-sub-1";
+
+    private static User user(long id) {
+        User u = new User();
+        u.setId(id);
+        u.setProviderId("google-sub-1");
+        return u;
+    }
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void laterRequestsForAPrincipalAreOneLookupById() {
+        User user = user(7L);
+        when(userRepository.findByUsername("google-sub-1")).thenReturn(Optional.empty());
+        when(userRepository.findByProviderId("google-sub-1")).thenReturn(Optional.of(user));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+
+        assertSame(user, userService.resolveUser(GOOGLE_SUB));
+        assertSame(user, userService.resolveUser(GOOGLE_SUB));
+        assertSame(user, userService.resolveUser(GOOGLE_SUB));
+
+        verify(userRepository, times(1)).findByUsername(anyString());
+        verify(userRepository, times(1)).findByProviderId(anyString());
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(userRepository, times(2)).findById(7L);
+    }
+
+    @Test
+    void withinOneRequestTheUserIsLoadedOnce() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        User user = user(7L);
+        when(userRepository.findByUsername("google-sub-1")).thenReturn(Optional.of(user));
+
+        User first = userService.resolveUser(GOOGLE_SUB);
+        User second = userService.resolveUser(GOOGLE_SUB);
+
+        assertSame(first, second);
+        verify(userRepository, times(1)).findByUsername(anyString());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void aDeletedUserIsNotServedFromTheCache() {
+        User user = user(7L);
+        when(userRepository.findByUsername("google-sub-1")).thenReturn(Optional.of(user), Optional.empty());
+        when(userRepository.findByProviderId("google-sub-1")).thenReturn(Optional.empty());
+        when(userRepository.findByEmail("google-sub-1")).thenReturn(Optional.empty());
+        when(userRepository.findById(7L)).thenReturn(Optional.empty());
+
+        assertSame(user, userService.resolveUser(GOOGLE_SUB));
+        assertNull(userService.resolveUser(GOOGLE_SUB));
+    }
+
+    @Test
+    void profileSyncDropsTheCachedResolution() {
+        User user = user(7L);
+        when(userRepository.findByUsername("google-sub-1")).thenReturn(Optional.of(user));
+        when(userRepository.findByProviderId("google-sub-1")).thenReturn(Optional.of(user));
+        userService.resolveUser(GOOGLE_SUB);
+
+        DefaultOAuth2User oauthUser = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("ROLE_USER"),
+                Map.of("sub", "google-sub-1", "email", "ola@example.com", "given_name", "Ola"), "sub");
+        userService.syncUser(new OAuth2AuthenticationToken(oauthUser, oauthUser.getAuthorities(), "google"));
+        userService.resolveUser(GOOGLE_SUB);
+
+        verify(userRepository, times(2)).findByUsername("google-sub-1");
+        verify(userRepository, never()).findById(any());
+    }
+
+    private static OAuth2AuthenticationToken googleLogin(String email, String givenName, String picture) {
+        DefaultOAuth2User oauthUser = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("ROLE_USER"),
+                Map.of("sub", "google-sub-1", "email", email, "given_name", givenName, "picture", picture), "sub");
+        return new OAuth2AuthenticationToken(oauthUser, oauthUser.getAuthorities(), "google");
+    }
+
+    @Test
+    void aLoginThatChangesNothingWritesNothing() {
+        User stored = user(7L);
+        stored.setEmail("ola@example.com");
+        stored.setFirstName("Ola");
+        stored.setAvatar("https://example.com/ola.png");
+        when(userRepository.findByProviderId("google-sub-1")).thenReturn(Optional.of(stored));
+
+        userService.syncUser(googleLogin("ola@example.com", "Ola", "https://example.com/ola.png"));
+        userService.syncUser(googleLogin("ola@example.com", "Ola", "https://example.com/ola.png"));
+
+        verify(userRepository, never()).save(any());
+        assertEquals(2, userService.loginWritesAvoided());
+        assertEquals(0, userService.loginWrites());
+    }
+
+    @Test
+    void aLoginWithANewAvatarIsSaved() {
+        User stored = user(7L);
+        stored.setEmail("ola@example.com");
+        stored.setFirstName("Ola");
+        stored.setAvatar("https://example.com/old.png");
+        when(userRepository.findByProviderId("google-sub-1")).thenReturn(Optional.of(stored));
+
+        userService.syncUser(googleLogin("ola@example.com", "Ola", "https://example.com/new.png"));
+
+        verify(userRepository).save(stored);
+        assertEquals("https://example.com/new.png", stored.getAvatar());
+        assertEquals(1, userService.loginWrites());
+        assertEquals(0, userService.loginWritesAvoided());
+    }
+}
@@ -0,0 +1,60 @@
+package fritids.norskgolf.service.catalog;
+
+import fritids.norskgolf.entities.Course;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseBitmapTest {
+
+    private static Course course(long id, String county) {
+        Course c = new Course();
+        c.setId(id);
+        c.setName("Bane " + id);
+        c.setCounty(county);
+        c.setActive(true);
+        return c;
+    }
+
+    @Test
+    void dropsCoursesTheSnapshotDoesNotKnow() {
+        CourseCatalog catalog = CourseCatalog.of(1, List.of(course(1L, "Oslo"), course(2L, "Oslo")));
+
+        // 99 was deactivated by the reconciler: it must not count towards an active-only total.
+        CourseBitmap played = catalog.bitmapOf(List.of(1L, 99L));
+
+        assertEquals(1, played.cardinality());
+        assertTrue(played.get(catalog.indexOf(1L)));
+        assertFalse(played.get(catalog.indexOf(2L)));
+    }
+
+    @Test
+    void countsAndCompletesCountiesAcrossWordBoundaries() {
+        // 130 courses spans three 64-bit words, so a county straddles a boundary.
+        List<Course> courses = new ArrayList<>();
+        for (long id = 0; id < 130; id++) courses.add(course(id, id < 60 ? "Oslo" : "Vestland"));
+        CourseCatalog catalog = CourseCatalog.of(1, courses);
+
+        CourseBitmap played = catalog.bitmapOf(LongStream.range(0, 70).boxed().toList());
+        CourseBitmap oslo = catalog.countyMasks().get("Oslo");
+        CourseBitmap vestland = catalog.countyMasks().get("Vestland");
+
+        assertEquals(70, played.cardinality());
+        assertEquals(60, played.countIn(oslo));
+        assertEquals(10, played.countIn(vestland));
+        assertTrue(played.containsAll(oslo));
+        assertFalse(played.containsAll(vestland));
+    }
+
+    @Test
+    void anEmptyCatalogYieldsAnEmptyBitmap() {
+        CourseCatalog catalog = CourseCatalog.of(1, List.of());
+
+        assertEquals(0, catalog.bitmapOf(List.of(1L, 2L)).cardinality());
+        assertTrue(catalog.countyMasks().isEmpty());
+    }
+}
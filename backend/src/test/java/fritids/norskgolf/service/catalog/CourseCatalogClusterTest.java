@@ -0,0 +1,59 @@
+package fritids.norskgolf.service.catalog;
+
+import fritids.norskgolf.entities.Course;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseCatalogClusterTest {
+
+    private static Course course(long id, double lat, double lon) {
+        Course c = new Course();
+        c.setId(id);
+        c.setName("Bane " + id);
+        c.setLatitude(lat);
+        c.setLongitude(lon);
+        c.setActive(true);
+        return c;
+    }
+
+    private final CourseCatalog catalog = CourseCatalog.of(1, List.of(
+            course(1L, 59.95, 10.70),    // Oslo
+            course(2L, 59.96, 10.64),    // Oslo, 3.5 km away
+            course(3L, 60.39, 5.32),     // Bergen
+            course(4L, 60.0, 10.0)));    // Hole, 40 km from Oslo
+
+    @Test
+    void groupsNeighboursAtLowZoomAndSplitsThemUpClose() {
+        List<CourseCatalog.Cluster> far = catalog.clusters(5);
+        CourseCatalog.Cluster oslo = far.get(0);
+        assertTrue(oslo.count() >= 2, "Oslo's two courses share a cell at zoom 5");
+        assertTrue(oslo.members().get(catalog.indexOf(1L)));
+        assertTrue(oslo.members().get(catalog.indexOf(2L)));
+        assertFalse(oslo.members().get(catalog.indexOf(3L)));
+
+        assertEquals(4, catalog.clusters(14).size(), "every course is its own cell at zoom 14");
+        assertEquals(4, catalog.clusters(14).stream().mapToInt(CourseCatalog.Cluster::count).sum());
+    }
+
+    @Test
+    void computesEachZoomOncePerSnapshot() {
+        assertSame(catalog.clusters(6), catalog.clusters(6));
+        assertNotSame(catalog.clusters(6), CourseCatalog.of(2, List.of(course(1L, 59.95, 10.70))).clusters(6));
+    }
+
+    @Test
+    void aPlayedCountIsOneIntersectionWithTheMembers() {
+        CourseBitmap played = catalog.bitmapOf(List.of(1L, 3L));
+        CourseCatalog.Cluster oslo = catalog.clusters(5).get(0);
+
+        assertEquals(1, played.countIn(oslo.members()));
+    }
+
+    @Test
+    void rejectsAZoomNoMapUses() {
+        assertThrows(IllegalArgumentException.class, () -> catalog.clusters(23));
+    }
+}
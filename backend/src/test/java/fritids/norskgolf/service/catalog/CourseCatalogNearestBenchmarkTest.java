@@ -0,0 +1,61 @@
+package fritids.norskgolf.service.catalog;
+
+import fritids.norskgolf.entities.Course;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Latency benchmark for /api/courses/nearby's lookup, at fifty times today's course count so a
+ * regression to scanning the whole catalog shows. The target is well under a millisecond per
+ * query; the assertion is a loose ceiling so a busy CI runner doesn't fail it.
+ */
+class CourseCatalogNearestBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseCatalogNearestBenchmarkTest.class);
+
+    @Test
+    void answersKNearestWellUnderAMillisecond() {
+        Random random = new Random(3);
+        List<Course> courses = new ArrayList<>();
+        for (long id = 0; id < 10_000; id++) {
+            Course c = new Course();
+            c.setId(id);
+            c.setName("Bane " + id);
+            c.setLatitude(57.5 + random.nextDouble() * 13.5);
+            c.setLongitude(4.5 + random.nextDouble() * 26.5);
+            c.setActive(true);
+            courses.add(c);
+        }
+        CourseCatalog catalog = CourseCatalog.of(1, courses);
+        CourseBitmap played = catalog.bitmapOf(courses.stream().filter(c -> c.getId() % 3 == 0).map(Course::getId).toList());
+
+        int queries = 20_000;
+        long[] nanos = new long[queries];
+        for (int q = 0; q < queries; q++) {
+            double lat = 57.5 + random.nextDouble() * 13.5;
+            double lon = 4.5 + random.nextDouble() * 26.5;
+            long start = System.nanoTime();
+            int found = catalog.nearest(lat, lon, 10, e -> !played.get(e.index())).size();
+            nanos[q] = System.nanoTime() - start;
+            assertEquals(10, found);
+        }
+
+        // The first half is JIT warm-up; measure the second.
+        long[] measured = Arrays.copyOfRange(nanos, queries / 2, queries);
+        Arrays.sort(measured);
+        long p50 = measured[measured.length / 2];
+        long p99 = measured[(int) (measured.length * 0.99)];
+        log.info("nearest(k=10, unplayed) over {} courses: p50 {} us, p99 {} us", courses.size(), p50 / 1000, p99 / 1000);
+
+        assertTrue(p50 < 1_000_000, "p50 was " + p50 / 1000 + " us");
+    }
+}
@@ -0,0 +1,69 @@
+package fritids.norskgolf.service.catalog;
+
+import fritids.norskgolf.entities.Course;
+import fritids.norskgolf.repository.CourseChangeRepository;
+import fritids.norskgolf.repository.CourseRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CourseCatalogProviderTest {
+
+    private final CourseRepository courseRepository = mock(CourseRepository.class);
+    private final CourseChangeRepository courseChangeRepository = mock(CourseChangeRepository.class);
+    private final CourseCatalogProvider provider = new CourseCatalogProvider(courseRepository, courseChangeRepository);
+
+    private static Course course(long id, String name, String county) {
+        Course c = new Course();
+        c.setId(id);
+        c.setName(name);
+        c.setCounty(county);
+        c.setActive(true);
+        return c;
+    }
+
+    @Test
+    void loadsTheActiveCoursesOnceAndSharesTheSnapshot() {
+        when(courseRepository.findByActiveTrue()).thenReturn(List.of(course(1L, "Meland", "Vestland")));
+
+        CourseCatalog first = provider.current();
+        CourseCatalog second = provider.current();
+
+        assertSame(first, second);
+        verify(courseRepository, times(1)).findByActiveTrue();
+    }
+
+    @Test
+    void invalidationSwapsInANewerSnapshot() {
+        when(courseRepository.findByActiveTrue())
+                .thenReturn(List.of(course(1L, "Meland", "Vestland")))
+                .thenReturn(List.of(course(1L, "Meland", "Vestland"), course(2L, "Fana", "Vestland")));
+
+        CourseCatalog before = provider.current();
+        provider.invalidateAfterCommit();
+        CourseCatalog after = provider.current();
+
+        assertEquals(1, before.size(), "a published snapshot is never mutated");
+        assertEquals(2, after.size());
+        assertTrue(after.version() > before.version());
+    }
+
+    @Test
+    void indexesCoursesDenselyAndBucketsNullCountiesAsUnknown() {
+        CourseCatalog catalog = CourseCatalog.of(1, List.of(
+                course(10L, "Meland", "Vestland"),
+                course(20L, "Oslo GK", "Oslo"),
+                course(30L, "Ukjent", null)));
+
+        assertEquals(0, catalog.indexOf(10L));
+        assertEquals(2, catalog.indexOf(30L));
+        assertEquals(-1, catalog.indexOf(99L), "deactivated or unknown courses have no index");
+        assertEquals(List.of("Vestland", "Oslo", CourseCatalog.UNKNOWN_COUNTY), List.copyOf(catalog.byCounty().keySet()));
+    }
+}
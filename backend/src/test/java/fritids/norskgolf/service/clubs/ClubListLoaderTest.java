@@ -2,6 +2,7 @@ package fritids.norskgolf.service.clubs;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -48,9 +49,29 @@ class ClubListLoaderTest {
                 () -> loader.load("clubs-duplicate-fixture.json"));
         assertTrue(e.getMessage().contains("duplicate clubId"), e.getMessage());
         assertTrue(e.getMessage().contains("miklagard-gk"), e.getMessage());
+        assertTrue(e.getMessage().contains("at line 11"), "points at the second entry: " + e.getMessage());
         assertFalse(e.getMessage().contains("could not read club list"), e.getMessage());
     }
 
+    @Test
+    void reportsWhereAMalformedFileBreaks() {
+        // The comma missing after "name" is noticed at "lat", line 14 column 5 of the fixture.
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> loader.load("clubs-malformed-fixture.json"));
+        assertTrue(e.getMessage().contains("could not read club list"), e.getMessage());
+        assertTrue(e.getMessage().contains("line: 14, column: 5"), e.getMessage());
+    }
+
+    @Test
+    void streamsEntriesUpToTheFirstBadOne() {
+        List<String> seen = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class,
+                () -> loader.forEach("clubs-duplicate-fixture.json", club -> seen.add(club.name())));
+
+        assertEquals(List.of("Miklagard Golfklubb"), seen, "the valid first entry was emitted before the duplicate");
+    }
+
     @Test
     void rejectsABlankClubId() {
         IllegalStateException e = assertThrows(IllegalStateException.class,
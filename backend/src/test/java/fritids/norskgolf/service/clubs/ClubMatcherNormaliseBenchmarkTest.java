@@ -0,0 +1,130 @@
+package fritids.norskgolf.service.clubs;
+
+import fritids.norskgolf.entities.Course;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark for the regex-free normaliser against the regex chain it replaced, kept below as the
+ * reference. Both run over every name in the bundled golf_clubs.json plus the spellings the OSM
+ * import used, then over random strings, and must agree on every one. The timing is only logged:
+ * two wall-clock measurements compared inside the normal test run would fail the build whenever a
+ * GC pause or a busy runner landed on the wrong one.
+ */
+class ClubMatcherNormaliseBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ClubMatcherNormaliseBenchmarkTest.class);
+
+    private static String legacyNormalise(String name) {
+        if (name == null) return "";
+        String folded = name.toLowerCase(Locale.ROOT)
+                .replaceAll("\\([^)]*\\)", " ")
+                .replace("&", " og ")
+                .replace("ø", "o").replace("æ", "ae").replace("å", "a")
+                .replace("aa", "a");
+        folded = Normalizer.normalize(folded, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return folded.replaceAll("\\b(golfklubb|golfpark|golfbane|golf|klubb|gk)\\b", " ")
+                .replaceAll("[^a-z0-9]", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    private static List<String> realNames() {
+        List<String> names = new ArrayList<>();
+        new ClubListLoader().forEach("golf_clubs.json", club -> {
+            String base = club.name();
+            names.add(base);
+            names.add(base.replace("Golfklubb", "GK"));
+            names.add(base.toUpperCase(Locale.ROOT));
+            names.add(base.replace("å", "aa").replace("Å", "Aa"));
+            names.add(base + " (" + club.municipality() + ")");
+            names.add(base.replace(" og ", " & "));
+        });
+        return names;
+    }
+
+    @Test
+    void agreesWithTheRegexVersionOnEveryRealName() {
+        for (String name : realNames()) {
+            assertEquals(legacyNormalise(name), ClubMatcher.normalise(name), name);
+        }
+    }
+
+    @Test
+    void agreesWithTheRegexVersionOnRandomStrings() {
+        // Letters with no ASCII decomposition (ß, ł, ...) are left out: whether the regex's \b
+        // treats them as word characters changed between JDKs, so there is no single reference.
+        String alphabet = "aaaAÅåæÆøØéüÉ()&_-., 'gkolfbnepr019̊";
+        String[] words = {"golf", "gk", "klubb", "golfklubb", "golfpark", "golfbane", "aa", "og"};
+        Random random = new Random(7);
+        for (int n = 0; n < 50_000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int parts = random.nextInt(8);
+            for (int p = 0; p < parts; p++) {
+                if (random.nextInt(3) == 0) sb.append(words[random.nextInt(words.length)]);
+                else sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String s = sb.toString();
+            assertEquals(legacyNormalise(s), ClubMatcher.normalise(s), "\"" + s + "\"");
+        }
+    }
+
+    @Test
+    void logsTheTimingAgainstTheRegexVersion() {
+        List<String> names = realNames();
+        for (int warmup = 0; warmup < 20; warmup++) {
+            names.forEach(ClubMatcherNormaliseBenchmarkTest::legacyNormalise);
+            names.forEach(ClubMatcher::normalise);
+        }
+
+        long legacy = time(names, ClubMatcherNormaliseBenchmarkTest::legacyNormalise);
+        long current = time(names, ClubMatcher::normalise);
+        log.info("normalise over {} names x 50: regex {} ms, single pass {} ms",
+                names.size(), legacy / 1_000_000, current / 1_000_000);
+    }
+
+    @Test
+    void matchesEveryClubAgainstItsOwnOsmSpelling() {
+        // The shape of a first reconcile: every club hunting for its old OSM row by name. Each
+        // course is compared against every club within 3 km but normalised only once.
+        List<ClubRecord> clubs = new ClubListLoader().load("golf_clubs.json");
+        List<Course> courses = new ArrayList<>();
+        for (ClubRecord club : clubs) {
+            Course c = new Course();
+            c.setName(club.name().replace("Golfklubb", "GK"));
+            c.setLatitude(club.lat());
+            c.setLongitude(club.lon());
+            courses.add(c);
+        }
+        ClubMatcher matcher = new ClubMatcher();
+
+        long start = System.nanoTime();
+        ClubMatcher.Candidates candidates = ClubMatcher.Candidates.of(courses);
+        int matched = 0;
+        for (ClubRecord club : clubs) {
+            if (matcher.match(club, candidates).course() != null) matched++;
+        }
+        log.info("matched {} of {} clubs in {} ms", matched, clubs.size(), (System.nanoTime() - start) / 1_000_000);
+
+        assertTrue(matched > clubs.size() * 0.9, "matched " + matched + " of " + clubs.size());
+    }
+
+    private static long time(List<String> names, java.util.function.Function<String, String> normaliser) {
+        long start = System.nanoTime();
+        int sink = 0;
+        for (int round = 0; round < 50; round++) {
+            for (String name : names) sink += normaliser.apply(name).length();
+        }
+        assertTrue(sink > 0);
+        return System.nanoTime() - start;
+    }
+}
@@ -115,6 +115,20 @@ class ClubMatcherTest {
         assertFalse(match.ambiguous());
     }
 
+    @Test
+    void aClaimedCandidateIsNoLongerOfferedToLaterClubs() {
+        Course moss = course("Moss Golfklubb", 59.4340, 10.6580);
+        Course mossGk = course("Moss GK", 59.4350, 10.6590);
+        ClubMatcher.Candidates candidates = ClubMatcher.Candidates.of(List.of(moss, mossGk));
+
+        assertTrue(matcher.match(club("Moss Golfklubb", 59.4345, 10.6585), candidates).ambiguous());
+
+        candidates.remove(moss);
+
+        assertSame(mossGk, matcher.match(club("Moss Golfklubb", 59.4345, 10.6585), candidates).course());
+        assertEquals(List.of(mossGk), matcher.nearby(club("Moss Golfklubb", 59.4345, 10.6585), candidates));
+    }
+
     @Test
     void distanceIsRoughlyRight() {
         // Oslo to Bergen is about 300 km
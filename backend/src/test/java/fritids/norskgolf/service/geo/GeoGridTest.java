@@ -0,0 +1,148 @@
+package fritids.norskgolf.service.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoGridTest {
+
+    private record Pin(String name, Double lat, Double lon) {}
+
+    @Test
+    void radiusQueryAgreesWithABruteForceScan() {
+        // Norway-shaped spread, including the far north where a degree of longitude is short.
+        Random random = new Random(42);
+        List<Pin> pins = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            pins.add(new Pin("p" + i, 57.5 + random.nextDouble() * 13.5, 4.5 + random.nextDouble() * 26.5));
+        }
+        GeoGrid<Pin> grid = GeoGrid.of(pins, Pin::lat, Pin::lon, 3.0);
+
+        for (int q = 0; q < 200; q++) {
+            double lat = 57.5 + random.nextDouble() * 13.5;
+            double lon = 4.5 + random.nextDouble() * 26.5;
+            double km = 1 + random.nextDouble() * 40;
+
+            List<Pin> expected = pins.stream()
+                    .filter(p -> GeoGrid.distanceKm(lat, lon, p.lat(), p.lon()) <= km)
+                    .toList();
+            assertEquals(expected, grid.within(lat, lon, km), "query " + q);
+        }
+    }
+
+    @Test
+    void skipsItemsWithoutCoordinates() {
+        Pin placed = new Pin("placed", 60.0, 10.0);
+        GeoGrid<Pin> grid = GeoGrid.of(List.of(placed, new Pin("unplaced", null, 10.0)), Pin::lat, Pin::lon, 3.0);
+
+        assertEquals(1, grid.size());
+        assertEquals(List.of(placed), grid.within(60.0, 10.0, 1.0));
+    }
+
+    @Test
+    void removedItemsStopMatchingByIdentity() {
+        Pin a = new Pin("same", 60.0, 10.0);
+        Pin b = new Pin("same", 60.0, 10.0); // equal to a, but a different course row
+        GeoGrid<Pin> grid = GeoGrid.of(List.of(a, b), Pin::lat, Pin::lon, 3.0);
+
+        assertTrue(grid.remove(a));
+        assertFalse(grid.remove(a));
+
+        List<Pin> left = grid.within(60.0, 10.0, 1.0);
+        assertEquals(1, left.size());
+        assertSame(b, left.get(0));
+    }
+
+    @Test
+    void nearestAgreesWithABruteForceSort() {
+        Random random = new Random(7);
+        List<Pin> pins = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            pins.add(new Pin("p" + i, 57.5 + random.nextDouble() * 13.5, 4.5 + random.nextDouble() * 26.5));
+        }
+        GeoGrid<Pin> grid = GeoGrid.of(pins, Pin::lat, Pin::lon, 10.0);
+
+        for (int q = 0; q < 300; q++) {
+            // Some queries well outside the spread, where the rings have to walk a long way in.
+            double lat = 50 + random.nextDouble() * 28;
+            double lon = -5 + random.nextDouble() * 45;
+            int k = 1 + random.nextInt(40);
+            boolean evenOnly = random.nextBoolean();
+
+            List<Pin> expected = pins.stream()
+                    .filter(p -> !evenOnly || Integer.parseInt(p.name().substring(1)) % 2 == 0)
+                    .sorted(Comparator.comparingDouble(p -> GeoGrid.distanceKm(lat, lon, p.lat(), p.lon())))
+                    .limit(k)
+                    .toList();
+            List<Pin> actual = grid.nearest(lat, lon, k,
+                            p -> !evenOnly || Integer.parseInt(p.name().substring(1)) % 2 == 0)
+                    .stream().map(GeoGrid.Hit::item).toList();
+            assertEquals(expected, actual, "query " + q);
+        }
+    }
+
+    @Test
+    void nearestFromFarOutsideTheExtentSkipsTheEmptyRings() {
+        // Kilometre cells and queries on the far side of the globe: some twenty thousand rings
+        // between the query cell and the nearest course. Walking each of them in full would take
+        // minutes; the rings that can't reach the occupied extent are skipped and the rest are
+        // clipped to it.
+        Random random = new Random(3);
+        List<Pin> pins = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            pins.add(new Pin("p" + i, 58 + random.nextDouble() * 12, 5 + random.nextDouble() * 25));
+        }
+        GeoGrid<Pin> grid = GeoGrid.of(pins, Pin::lat, Pin::lon, 1.0);
+
+        double[][] queries = {{-60.0, -170.0}, {89.0, -179.0}, {-89.0, 20.0}, {64.0, -150.0}};
+        for (double[] q : queries) {
+            List<Pin> expected = pins.stream()
+                    .sorted(Comparator.comparingDouble(p -> GeoGrid.distanceKm(q[0], q[1], p.lat(), p.lon())))
+                    .limit(5)
+                    .toList();
+            List<Pin> actual = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> grid.nearest(q[0], q[1], 5, p -> true)).stream().map(GeoGrid.Hit::item).toList();
+            assertEquals(expected, actual, q[0] + "," + q[1]);
+        }
+    }
+
+    @Test
+    void nearestReturnsWhatThereIsWhenFewerThanKMatch() {
+        Pin near = new Pin("near", 60.0, 10.0);
+        Pin far = new Pin("far", 69.0, 25.0);
+        GeoGrid<Pin> grid = GeoGrid.of(List.of(far, near), Pin::lat, Pin::lon, 10.0);
+
+        List<GeoGrid.Hit<Pin>> hits = grid.nearest(59.9, 10.7, 10, p -> true);
+
+        assertEquals(List.of(near, far), hits.stream().map(GeoGrid.Hit::item).toList());
+        assertEquals(GeoGrid.distanceKm(59.9, 10.7, 60.0, 10.0), hits.get(0).km(), 1e-9);
+        assertTrue(grid.nearest(59.9, 10.7, 10, p -> false).isEmpty());
+    }
+
+    @Test
+    void boxQueryAgreesWithABruteForceScan() {
+        Random random = new Random(11);
+        List<Pin> pins = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            pins.add(new Pin("p" + i, 57.5 + random.nextDouble() * 13.5, 4.5 + random.nextDouble() * 26.5));
+        }
+        GeoGrid<Pin> grid = GeoGrid.of(pins, Pin::lat, Pin::lon, 10.0);
+
+        for (int q = 0; q < 200; q++) {
+            double south = 55 + random.nextDouble() * 16, north = south + random.nextDouble() * 4;
+            double west = 2 + random.nextDouble() * 30, east = west + random.nextDouble() * 8;
+
+            List<Pin> expected = pins.stream()
+                    .filter(p -> p.lat() >= south && p.lat() <= north && p.lon() >= west && p.lon() <= east)
+                    .toList();
+            assertEquals(expected, grid.inBox(south, west, north, east), "query " + q);
+        }
+        assertEquals(pins, grid.inBox(-90, -180, 90, 180));
+    }
+}